@@ -2,8 +2,10 @@ package me.gaga.employeehubapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EmployeeHubApiApplication {
 
     public static void main(String[] args) {
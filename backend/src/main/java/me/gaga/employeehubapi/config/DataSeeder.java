@@ -77,7 +77,7 @@ public class DataSeeder {
 
             Reward r1 = Reward.builder().name("Coffee Mug").description("Company mug").kudosCost(50).imageUrl(null).build();
             Reward r2 = Reward.builder().name("T-Shirt").description("Branded tee").kudosCost(120).imageUrl(null).build();
-            Reward r3 = Reward.builder().name("Day Off").description("One day PTO").kudosCost(500).imageUrl(null).build();
+            Reward r3 = Reward.builder().name("Day Off").description("One day PTO").kudosCost(500).imageUrl(null).stock(10).build();
             rewardRepository.save(r1);
             rewardRepository.save(r2);
             rewardRepository.save(r3);
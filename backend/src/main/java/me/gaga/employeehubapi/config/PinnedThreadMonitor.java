@@ -0,0 +1,65 @@
+package me.gaga.employeehubapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+// A virtual thread that blocks inside a synchronized block (or native frame) pins its carrier thread. JFR reports
+// each such block longer than the threshold; we log where it happened and count it, so hot spots show up in metrics.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class PinnedThreadMonitor {
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Counter pinned;
+    private final long thresholdMs;
+    private RecordingStream recording;
+
+    public PinnedThreadMonitor(MeterRegistry meterRegistry,
+                               @Value("${virtual-threads.pinning.threshold-ms:20}") long thresholdMs) {
+        this.pinned = meterRegistry.counter("jvm.threads.virtual.pinned");
+        this.thresholdMs = thresholdMs;
+    }
+
+    @PostConstruct
+    void start() {
+        recording = new RecordingStream();
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        recording.onEvent("jdk.VirtualThreadPinned", this::report);
+        recording.startAsync();
+    }
+
+    public double pinnedCount() {
+        return pinned.count();
+    }
+
+    @PreDestroy
+    void stop() {
+        recording.close();
+    }
+
+    private void report(RecordedEvent event) {
+        pinned.increment();
+        if (log.isWarnEnabled()) {
+            String frames = event.getStackTrace() == null ? "<no stack trace>" : event.getStackTrace().getFrames().stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(RecordedFrame::getMethod)
+                    .map(method -> method.getType().getName() + "." + method.getName())
+                    .collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+            log.warn("Virtual thread pinned its carrier for {} ms{}", event.getDuration().toMillis(), frames);
+        }
+    }
+}
@@ -2,13 +2,17 @@ package me.gaga.employeehubapi.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import me.gaga.employeehubapi.dto.kudos.CompactFeedDTO;
 import me.gaga.employeehubapi.dto.kudos.KudosDTO;
 import me.gaga.employeehubapi.dto.kudos.SendKudosRequest;
-import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.dto.kudos.LeaderboardEntryDTO;
+import me.gaga.employeehubapi.service.IdempotencyService;
 import me.gaga.employeehubapi.service.KudosService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -18,22 +22,53 @@ import java.util.List;
 public class KudosController {
 
     private final KudosService kudosService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/send")
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
-    public ResponseEntity<KudosDTO> send(@Valid @RequestBody SendKudosRequest request) {
-        return ResponseEntity.ok(kudosService.sendKudos(request));
+    public ResponseEntity<KudosDTO> send(@Valid @RequestBody SendKudosRequest request,
+                                         @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        String fingerprint = "kudos-send:" + request.getReceiverId() + ":" + request.getAmount() + ":" + request.getMessage();
+        IdempotencyService.Outcome<KudosDTO> outcome = idempotencyService.execute(idempotencyKey, fingerprint, KudosDTO.class,
+                () -> kudosService.sendKudos(request));
+        return outcome.replayed()
+                ? ResponseEntity.ok().header(IdempotencyService.REPLAYED_HEADER, "true").body(outcome.body())
+                : ResponseEntity.ok(outcome.body());
     }
 
     @GetMapping("/feed")
     public ResponseEntity<List<KudosDTO>> feed(@RequestParam(defaultValue = "0") int page,
-                                               @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(kudosService.feed(page, size));
+                                               @RequestParam(defaultValue = "20") int size,
+                                               @RequestParam(required = false) String before,
+                                               @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(feedPage(page, size, before, limit));
+    }
+
+    @GetMapping("/feed/compact")
+    public ResponseEntity<CompactFeedDTO> compactFeed(@RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      @RequestParam(required = false) String before,
+                                                      @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(kudosService.compact(feedPage(page, size, before, limit)));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return kudosService.stream(lastEventId);
     }
 
     @GetMapping("/leaderboard")
-    public ResponseEntity<List<UserDTO>> leaderboard() {
-        return ResponseEntity.ok(kudosService.leaderboard());
+    public ResponseEntity<List<LeaderboardEntryDTO>> leaderboard(@RequestParam(defaultValue = "20") int limit,
+                                                                 @RequestParam(required = false) String around,
+                                                                 @RequestParam(required = false) String window) {
+        return ResponseEntity.ok(kudosService.leaderboard(limit, around, window));
+    }
+
+    private List<KudosDTO> feedPage(int page, int size, String before, Integer limit) {
+        if (before != null || limit != null) {
+            return kudosService.feedBefore(before, limit != null ? limit : size);
+        }
+        return kudosService.feed(page, size);
     }
 }
 
@@ -4,7 +4,9 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import me.gaga.employeehubapi.dto.project.CreateProjectRequest;
 import me.gaga.employeehubapi.dto.project.ProjectDTO;
+import me.gaga.employeehubapi.dto.project.ProjectSummaryDTO;
 import me.gaga.employeehubapi.dto.project.UpdateProjectRequest;
+import me.gaga.employeehubapi.dto.user.UserDTO;
 import me.gaga.employeehubapi.service.ProjectService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,6 +26,24 @@ public class ProjectsController {
         return ResponseEntity.ok(projectService.listProjects());
     }
 
+    @GetMapping("/summaries")
+    public ResponseEntity<List<ProjectSummaryDTO>> listSummaries(@RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(projectService.listProjectSummaries(page, size));
+    }
+
+    @GetMapping("/mine")
+    public ResponseEntity<List<ProjectSummaryDTO>> listMine() {
+        return ResponseEntity.ok(projectService.listMyProjects());
+    }
+
+    @GetMapping("/{projectId}/members")
+    public ResponseEntity<List<UserDTO>> listMembers(@PathVariable Long projectId,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(projectService.listMembers(projectId, after, limit));
+    }
+
     @PostMapping("/")
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
     public ResponseEntity<ProjectDTO> create(@Valid @RequestBody CreateProjectRequest request) {
@@ -1,9 +1,12 @@
 package me.gaga.employeehubapi.controller;
 
 import lombok.RequiredArgsConstructor;
-import me.gaga.employeehubapi.dto.reward.RewardDTO;
 import me.gaga.employeehubapi.dto.reward.RewardRedemptionDTO;
+import me.gaga.employeehubapi.service.IdempotencyService;
+import me.gaga.employeehubapi.service.RewardCatalog;
 import me.gaga.employeehubapi.service.RewardService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -16,16 +19,36 @@ import java.util.List;
 public class RewardsController {
 
     private final RewardService rewardService;
+    private final RewardCatalog rewardCatalog;
+    private final IdempotencyService idempotencyService;
+
+    // A matching If-None-Match is answered with 304 by Spring once the ETag is on the response
+    @GetMapping(path = "/", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> list(@RequestParam(required = false) Integer maxCost) {
+        RewardCatalog.Page page = rewardCatalog.list(maxCost);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(page.etag())
+                .body(page.json());
+    }
 
-    @GetMapping("/")
-    public ResponseEntity<List<RewardDTO>> list() {
-        return ResponseEntity.ok(rewardService.listRewards());
+    @GetMapping("/redemptions")
+    public ResponseEntity<List<RewardRedemptionDTO>> redemptions(@RequestParam(required = false) Long userId,
+                                                                 @RequestParam(required = false) String status,
+                                                                 @RequestParam(required = false) String before,
+                                                                 @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(rewardService.listRedemptions(userId, status, before, limit));
     }
 
     @PostMapping("/{rewardId}/redeem")
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
-    public ResponseEntity<RewardRedemptionDTO> redeem(@PathVariable Long rewardId) {
-        return ResponseEntity.ok(rewardService.redeem(rewardId));
+    public ResponseEntity<RewardRedemptionDTO> redeem(@PathVariable Long rewardId,
+                                                      @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        IdempotencyService.Outcome<RewardRedemptionDTO> outcome = idempotencyService.execute(idempotencyKey,
+                "reward-redeem:" + rewardId, RewardRedemptionDTO.class, () -> rewardService.redeem(rewardId));
+        return outcome.replayed()
+                ? ResponseEntity.ok().header(IdempotencyService.REPLAYED_HEADER, "true").body(outcome.body())
+                : ResponseEntity.ok(outcome.body());
     }
 }
 
@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import me.gaga.employeehubapi.dto.user.UpdateRoleRequest;
 import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.dto.user.UserSummaryDTO;
 import me.gaga.employeehubapi.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -23,6 +24,13 @@ public class UsersController {
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
+    @GetMapping("/directory")
+    public ResponseEntity<List<UserSummaryDTO>> directory(@RequestParam(required = false) String q,
+                                                          @RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(userService.listUsers(q, after, limit));
+    }
+
     @PatchMapping("/{userId}/role")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<UserDTO> updateRole(@PathVariable Long userId, @Valid @RequestBody UpdateRoleRequest request) {
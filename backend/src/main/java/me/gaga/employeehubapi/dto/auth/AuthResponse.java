@@ -17,6 +17,7 @@ public class AuthResponse {
     private String email;
     private Role role;
     private String token;
+    private String refreshToken;
     private String avatarUrl;
     private Integer kudosBalance;
     private Integer kudosReceived;
@@ -0,0 +1,21 @@
+package me.gaga.employeehubapi.dto.kudos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.gaga.employeehubapi.dto.user.UserDTO;
+
+import java.util.List;
+import java.util.Map;
+
+// A feed page with each sender and receiver listed once in `users`, keyed by id
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompactFeedDTO {
+
+    private List<CompactKudosDTO> kudos;
+    private Map<Long, UserDTO> users;
+}
@@ -0,0 +1,23 @@
+package me.gaga.employeehubapi.dto.kudos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompactKudosDTO {
+
+    private Long id;
+    private Long senderId;
+    private Long receiverId;
+    private Integer amount;
+    private String message;
+    private LocalDateTime createdAt;
+    private Boolean isStreakBonus;
+}
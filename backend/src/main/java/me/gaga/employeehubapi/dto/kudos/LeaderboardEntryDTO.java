@@ -0,0 +1,21 @@
+package me.gaga.employeehubapi.dto.kudos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.gaga.employeehubapi.entity.Role;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryDTO {
+
+    private Integer rank;
+    private Long id;
+    private String name;
+    private String avatarUrl;
+    private Role role;
+    private Integer kudosReceived;
+}
@@ -0,0 +1,28 @@
+package me.gaga.employeehubapi.dto.project;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectSummaryDTO {
+
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long ownerId;
+    private String ownerName;
+    private int memberCount;
+    @Builder.Default
+    private List<String> memberAvatars = new ArrayList<>();
+}
@@ -17,4 +17,5 @@ public class RewardDTO {
     private Integer kudosCost;
     private String imageUrl;
     private Boolean isActive;
+    private Integer stock;
 }
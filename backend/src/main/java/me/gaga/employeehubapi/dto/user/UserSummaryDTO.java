@@ -0,0 +1,20 @@
+package me.gaga.employeehubapi.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.gaga.employeehubapi.entity.Role;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummaryDTO {
+
+    private Long id;
+    private String name;
+    private String email;
+    private Role role;
+    private String avatarUrl;
+}
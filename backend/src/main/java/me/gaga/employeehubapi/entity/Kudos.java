@@ -7,9 +7,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "kudos")
+@Table(name = "kudos", indexes = {
+        @Index(name = "idx_kudos_created_at_id", columnList = "created_at DESC, id DESC")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -40,7 +43,8 @@ public class Kudos {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Database timestamps hold microseconds; truncating keeps in-memory copies equal to what is read back
+        createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         if (isStreakBonus == null) {
             isStreakBonus = false;
         }
@@ -0,0 +1,47 @@
+package me.gaga.employeehubapi.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "kudos_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KudosOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long kudosId;
+
+    @Column(nullable = false)
+    private String senderName;
+
+    @Column(nullable = false)
+    private String receiverName;
+
+    @Column(nullable = false)
+    private Integer amount;
+
+    private String message;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set while a poller is delivering the row; an expired lease means that poller died and the row is free again
+    private LocalDateTime claimedUntil;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -40,7 +40,8 @@ public class Project {
     @JoinTable(
         name = "project_members",
         joinColumns = @JoinColumn(name = "project_id"),
-        inverseJoinColumns = @JoinColumn(name = "user_id")
+        inverseJoinColumns = @JoinColumn(name = "user_id"),
+        indexes = @Index(name = "idx_project_members_user_project", columnList = "user_id, project_id")
     )
     private Set<User> members = new HashSet<>();
 
@@ -0,0 +1,7 @@
+package me.gaga.employeehubapi.entity;
+
+public enum RedemptionStatus {
+    PENDING,
+    FULFILLED,
+    FAILED
+}
@@ -30,6 +30,9 @@ public class Reward {
 
     private Boolean isActive;
 
+    // Units left to redeem; null means unlimited
+    private Integer stock;
+
     @PrePersist
     protected void onCreate() {
         if (isActive == null) {
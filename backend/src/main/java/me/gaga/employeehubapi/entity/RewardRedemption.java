@@ -5,11 +5,16 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reward_redemptions")
+@Table(name = "reward_redemptions", indexes = {
+        @Index(name = "idx_reward_redemptions_user_redeemed_at", columnList = "user_id, redeemed_at"),
+        @Index(name = "idx_reward_redemptions_status_redeemed_at", columnList = "status, redeemed_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -34,13 +39,17 @@ public class RewardRedemption {
     @Column(nullable = false)
     private LocalDateTime redeemedAt;
 
-    private String status;
+    // Plain VARCHAR as before the enum, rather than a database enum type, so older values can still be migrated
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false)
+    private RedemptionStatus status;
 
     @PrePersist
     protected void onCreate() {
         redeemedAt = LocalDateTime.now();
         if (status == null) {
-            status = "PENDING";
+            status = RedemptionStatus.PENDING;
         }
     }
 }
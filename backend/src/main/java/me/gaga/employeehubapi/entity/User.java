@@ -9,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -45,6 +46,8 @@ public class User implements UserDetails {
 
     private Integer streakCount;
 
+    private LocalDate lastKudosSentOn;
+
     private boolean enabled = true;
 
     @Override
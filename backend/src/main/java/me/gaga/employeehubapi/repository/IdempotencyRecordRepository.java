@@ -0,0 +1,32 @@
+package me.gaga.employeehubapi.repository;
+
+import me.gaga.employeehubapi.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = ?2, r.completedAt = ?3 WHERE r.id = ?1")
+    int complete(Long id, String response, LocalDateTime completedAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.createdAt = ?3 WHERE r.id = ?1 AND r.createdAt = ?2 AND r.completedAt IS NULL")
+    int renewClaim(Long id, LocalDateTime claimedAt, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = ?1")
+    int release(Long id);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < ?1")
+    int deleteCreatedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,31 @@
+package me.gaga.employeehubapi.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import me.gaga.employeehubapi.entity.KudosOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface KudosOutboxRepository extends JpaRepository<KudosOutbox, Long> {
+
+    // Lock timeout -2 is Hibernate's SKIP_LOCKED: renders FOR UPDATE SKIP LOCKED on PostgreSQL,
+    // so concurrent pollers on other nodes claim disjoint batches instead of waiting on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM KudosOutbox o WHERE o.claimedUntil IS NULL OR o.claimedUntil < ?1 ORDER BY o.id")
+    List<KudosOutbox> claimBatch(LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE KudosOutbox o SET o.claimedUntil = NULL WHERE o.id IN ?1")
+    int release(Collection<Long> ids);
+}
@@ -1,25 +1,126 @@
 package me.gaga.employeehubapi.repository;
 
+import jakarta.persistence.QueryHint;
 import me.gaga.employeehubapi.entity.Kudos;
+import me.gaga.employeehubapi.entity.Role;
 import me.gaga.employeehubapi.entity.User;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface KudosRepository extends JpaRepository<Kudos, Long> {
     
-    Page<Kudos> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    String FEED_COLUMNS = "SELECT k.id AS id, k.amount AS amount, k.message AS message, " +
+            "k.createdAt AS createdAt, k.isStreakBonus AS isStreakBonus, " +
+            "s.id AS senderId, s.name AS senderName, s.email AS senderEmail, s.role AS senderRole, " +
+            "s.avatarUrl AS senderAvatarUrl, s.kudosBalance AS senderKudosBalance, " +
+            "s.kudosReceived AS senderKudosReceived, s.streakCount AS senderStreakCount, " +
+            "r.id AS receiverId, r.name AS receiverName, r.email AS receiverEmail, r.role AS receiverRole, " +
+            "r.avatarUrl AS receiverAvatarUrl, r.kudosBalance AS receiverKudosBalance, " +
+            "r.kudosReceived AS receiverKudosReceived, r.streakCount AS receiverStreakCount " +
+            "FROM Kudos k LEFT JOIN k.sender s LEFT JOIN k.receiver r ";
+
+    // Feed pages are read as flat rows in one statement instead of loading both users per kudos.
+    // Outer joins (both sides are non-null anyway) stop the planner from driving the join from users
+    // and sorting, so the ORDER BY/LIMIT is always answered by walking idx_kudos_created_at_id.
+    @Query(FEED_COLUMNS + "ORDER BY k.createdAt DESC, k.id DESC")
+    Slice<FeedRow> findFeedPage(Pageable pageable);
+
+    // Keyset page: seeks straight into idx_kudos_created_at_id instead of skipping OFFSET rows
+    @Query(FEED_COLUMNS + "WHERE (k.createdAt, k.id) < (?1, ?2) ORDER BY k.createdAt DESC, k.id DESC")
+    Slice<FeedRow> findFeedBefore(LocalDateTime createdAt, Long id, Pageable pageable);
     
     List<Kudos> findBySender(User sender);
     
     List<Kudos> findByReceiver(User receiver);
-    
-    @Query("SELECT k FROM Kudos k WHERE k.sender = ?1 AND k.createdAt >= ?2")
-    List<Kudos> findBySenderAndCreatedAtAfter(User sender, LocalDateTime date);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT k.sender.id AS senderId, k.createdAt AS createdAt FROM Kudos k ORDER BY k.sender.id, k.createdAt")
+    Stream<SenderActivity> streamSenderActivity();
+
+    // A seek on idx_kudos_created_at_id; the first kudos of a window bounds the id-ordered replay below
+    @Query("SELECT MIN(k.id) FROM Kudos k WHERE k.createdAt >= ?1")
+    Long findFirstIdSince(LocalDateTime since);
+
+    @Query("SELECT k.id AS id, k.receiver.id AS receiverId, k.receiver.name AS receiverName, " +
+            "k.receiver.avatarUrl AS receiverAvatarUrl, k.receiver.role AS receiverRole, " +
+            "k.amount AS amount, k.createdAt AS createdAt " +
+            "FROM Kudos k WHERE k.createdAt >= ?1 AND k.id > ?2 ORDER BY k.id")
+    List<ReceivedKudos> findReceivedSince(LocalDateTime since, Long afterId, Pageable pageable);
+
+    interface FeedRow {
+        Long getId();
+
+        Integer getAmount();
+
+        String getMessage();
+
+        LocalDateTime getCreatedAt();
+
+        Boolean getIsStreakBonus();
+
+        Long getSenderId();
+
+        String getSenderName();
+
+        String getSenderEmail();
+
+        Role getSenderRole();
+
+        String getSenderAvatarUrl();
+
+        Integer getSenderKudosBalance();
+
+        Integer getSenderKudosReceived();
+
+        Integer getSenderStreakCount();
+
+        Long getReceiverId();
+
+        String getReceiverName();
+
+        String getReceiverEmail();
+
+        Role getReceiverRole();
+
+        String getReceiverAvatarUrl();
+
+        Integer getReceiverKudosBalance();
+
+        Integer getReceiverKudosReceived();
+
+        Integer getReceiverStreakCount();
+    }
+
+    interface SenderActivity {
+        Long getSenderId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    interface ReceivedKudos {
+        Long getId();
+
+        Long getReceiverId();
+
+        String getReceiverName();
+
+        String getReceiverAvatarUrl();
+
+        Role getReceiverRole();
+
+        Integer getAmount();
+
+        LocalDateTime getCreatedAt();
+    }
 }
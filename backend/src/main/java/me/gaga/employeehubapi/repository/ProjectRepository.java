@@ -1,11 +1,21 @@
 package me.gaga.employeehubapi.repository;
 
+import jakarta.persistence.QueryHint;
 import me.gaga.employeehubapi.entity.Project;
 import me.gaga.employeehubapi.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
@@ -13,4 +23,67 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     List<Project> findByOwner(User owner);
     
     List<Project> findByMembersContaining(User member);
+
+    // SIZE() becomes a count over project_members only; member rows are never loaded
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.createdAt AS createdAt, " +
+            "p.updatedAt AS updatedAt, o.id AS ownerId, o.name AS ownerName, SIZE(p.members) AS memberCount " +
+            "FROM Project p JOIN p.owner o ORDER BY p.id")
+    Slice<ProjectSummaryRow> findSummaries(Pageable pageable);
+
+    // Walks idx_project_members_user_project from the member's side, so the cost follows the user's memberships
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.createdAt AS createdAt, " +
+            "p.updatedAt AS updatedAt, o.id AS ownerId, o.name AS ownerName, SIZE(p.members) AS memberCount " +
+            "FROM Project p JOIN p.owner o JOIN p.members m WHERE m.id = ?1 ORDER BY p.id")
+    List<ProjectSummaryRow> findSummariesByMemberId(Long userId);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.createdAt AS createdAt, " +
+            "p.updatedAt AS updatedAt, o.id AS ownerId, o.name AS ownerName, SIZE(p.members) AS memberCount " +
+            "FROM Project p JOIN p.owner o WHERE p.id IN ?1 ORDER BY p.id")
+    List<ProjectSummaryRow> findSummariesByIdIn(Collection<Long> projectIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id AS projectId, m.id AS userId FROM Project p JOIN p.members m")
+    Stream<Membership> streamMemberships();
+
+    // The first `perProject` members with an avatar for each project, in member id order
+    @Query("SELECT r.projectId AS projectId, r.avatarUrl AS avatarUrl FROM (" +
+            "SELECT p.id AS projectId, m.avatarUrl AS avatarUrl, " +
+            "ROW_NUMBER() OVER (PARTITION BY p.id ORDER BY m.id) AS position " +
+            "FROM Project p JOIN p.members m WHERE p.id IN ?1 AND m.avatarUrl IS NOT NULL) r " +
+            "WHERE r.position <= ?2 ORDER BY r.projectId, r.position")
+    List<MemberAvatar> findMemberAvatars(Collection<Long> projectIds, int perProject);
+
+    // Keyset page over the (project_id, user_id) primary key of project_members
+    @Query("SELECT m FROM Project p JOIN p.members m WHERE p.id = ?1 AND m.id > ?2 ORDER BY m.id")
+    Slice<User> findMembersAfter(Long projectId, Long afterUserId, Pageable pageable);
+
+    interface ProjectSummaryRow {
+        Long getId();
+
+        String getName();
+
+        String getDescription();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
+
+        Long getOwnerId();
+
+        String getOwnerName();
+
+        Integer getMemberCount();
+    }
+
+    interface Membership {
+        Long getProjectId();
+
+        Long getUserId();
+    }
+
+    interface MemberAvatar {
+        Long getProjectId();
+
+        String getAvatarUrl();
+    }
 }
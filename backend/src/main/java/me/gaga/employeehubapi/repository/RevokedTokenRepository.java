@@ -0,0 +1,22 @@
+package me.gaga.employeehubapi.repository;
+
+import me.gaga.employeehubapi.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // A plain insert rather than save(): the primary key is the only arbiter when two nodes revoke the same token
+    @Modifying
+    @Query("INSERT INTO RevokedToken (tokenId, expiresAt) VALUES (?1, ?2)")
+    int insert(String tokenId, LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < ?1")
+    int deleteExpiredBefore(LocalDateTime cutoff);
+}
@@ -1,16 +1,68 @@
 package me.gaga.employeehubapi.repository;
 
+import me.gaga.employeehubapi.entity.RedemptionStatus;
 import me.gaga.employeehubapi.entity.RewardRedemption;
-import me.gaga.employeehubapi.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RewardRedemptionRepository extends JpaRepository<RewardRedemption, Long> {
-    
-    List<RewardRedemption> findByUser(User user);
-    
-    List<RewardRedemption> findByUserAndStatus(User user, String status);
+
+    String HISTORY = "SELECT r FROM RewardRedemption r JOIN FETCH r.user JOIN FETCH r.reward ";
+
+    // Keyset pages, newest first: seek into idx_reward_redemptions_user_redeemed_at ...
+    @Query(HISTORY + "WHERE r.user.id = ?1 AND (r.redeemedAt, r.id) < (?2, ?3) ORDER BY r.redeemedAt DESC, r.id DESC")
+    Slice<RewardRedemption> findByUserBefore(Long userId, LocalDateTime redeemedAt, Long id, Pageable pageable);
+
+    @Query(HISTORY + "WHERE r.user.id = ?1 AND r.status = ?2 AND (r.redeemedAt, r.id) < (?3, ?4) "
+            + "ORDER BY r.redeemedAt DESC, r.id DESC")
+    Slice<RewardRedemption> findByUserAndStatusBefore(Long userId, RedemptionStatus status, LocalDateTime redeemedAt,
+                                                      Long id, Pageable pageable);
+
+    // ... or idx_reward_redemptions_status_redeemed_at
+    @Query(HISTORY + "WHERE r.status = ?1 AND (r.redeemedAt, r.id) < (?2, ?3) ORDER BY r.redeemedAt DESC, r.id DESC")
+    Slice<RewardRedemption> findByStatusBefore(RedemptionStatus status, LocalDateTime redeemedAt, Long id,
+                                               Pageable pageable);
+
+    // Oldest first, so the fulfilment queue is drained in redemption order
+    @Query("SELECT r.id FROM RewardRedemption r WHERE r.status = ?1 ORDER BY r.redeemedAt, r.id")
+    List<Long> findIdsByStatus(RedemptionStatus status, Pageable pageable);
+
+    @Query("SELECT r.id AS id, r.user.id AS userId, r.reward.id AS rewardId, r.kudosCost AS kudosCost, "
+            + "r.reward.isActive AS rewardActive, r.reward.stock AS rewardStock "
+            + "FROM RewardRedemption r WHERE r.id IN ?1 AND r.status = ?2")
+    List<QueuedRedemption> findQueued(Collection<Long> ids, RedemptionStatus status);
+
+    // The status guard makes each transition happen once, even if two workers picked up the same redemption
+    @Modifying
+    @Query("UPDATE RewardRedemption r SET r.status = ?3 WHERE r.id IN ?1 AND r.status = ?2")
+    int transition(Collection<Long> ids, RedemptionStatus from, RedemptionStatus to);
+
+    long countByStatus(RedemptionStatus status);
+
+    @Modifying
+    @Query(value = "UPDATE reward_redemptions SET status = 'FULFILLED' WHERE status = 'COMPLETED'", nativeQuery = true)
+    int fulfilCompleted();
+
+    interface QueuedRedemption {
+        Long getId();
+
+        Long getUserId();
+
+        Long getRewardId();
+
+        Integer getKudosCost();
+
+        Boolean getRewardActive();
+
+        Integer getRewardStock();
+    }
 }
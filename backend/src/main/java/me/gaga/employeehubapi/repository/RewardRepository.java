@@ -2,6 +2,8 @@ package me.gaga.employeehubapi.repository;
 
 import me.gaga.employeehubapi.entity.Reward;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,6 +12,17 @@ import java.util.List;
 public interface RewardRepository extends JpaRepository<Reward, Long> {
     
     List<Reward> findByIsActiveTrue();
+
+    List<Reward> findByIsActiveTrueOrderByKudosCostAscIdAsc();
     
     List<Reward> findByKudosCostLessThanEqual(Integer kudos);
+
+    // Zero rows updated means the reward sold out; the row lock taken here serializes buyers of the last units
+    @Modifying
+    @Query("UPDATE Reward r SET r.stock = r.stock - 1 WHERE r.id = ?1 AND r.stock > 0")
+    int takeStock(Long rewardId);
+
+    @Modifying
+    @Query("UPDATE Reward r SET r.stock = r.stock + ?2 WHERE r.id = ?1 AND r.stock IS NOT NULL")
+    int returnStock(Long rewardId, int units);
 }
@@ -1,12 +1,19 @@
 package me.gaga.employeehubapi.repository;
 
+import jakarta.persistence.QueryHint;
+import me.gaga.employeehubapi.entity.Role;
 import me.gaga.employeehubapi.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.time.LocalDate;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -15,6 +22,76 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByEmail(String email);
     
-    @Query("SELECT u FROM User u ORDER BY u.kudosReceived DESC")
-    List<User> findTopUsersByKudosReceived();
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.id AS id, u.name AS name, u.avatarUrl AS avatarUrl, u.role AS role, u.kudosReceived AS kudosReceived FROM User u")
+    Stream<LeaderboardRow> streamLeaderboardRows();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.id AS id, u.name AS name, u.email AS email, u.avatarUrl AS avatarUrl, u.role AS role FROM User u")
+    Stream<DirectoryRow> streamDirectoryRows();
+
+    // Conditional debit: returns 0 when the balance would go negative, so the check and the write are one statement.
+    // The daily streak advances in the same statement: a second send on the same day extends it, otherwise it restarts at 1.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.kudosBalance = u.kudosBalance - ?2, " +
+            "u.streakCount = CASE WHEN u.lastKudosSentOn = ?3 THEN u.streakCount + 1 ELSE 1 END, " +
+            "u.lastKudosSentOn = ?3 " +
+            "WHERE u.id = ?1 AND u.kudosBalance >= ?2")
+    int debitKudosBalance(Long userId, int amount, LocalDate today);
+
+    @Modifying
+    @Query("UPDATE User u SET u.kudosBalance = u.kudosBalance - ?2 WHERE u.id = ?1 AND u.kudosBalance >= ?2")
+    int spendKudosBalance(Long userId, int amount);
+
+    @Modifying
+    @Query("UPDATE User u SET u.kudosBalance = u.kudosBalance + ?2 WHERE u.id = ?1")
+    int refundKudosBalance(Long userId, int amount);
+
+    @Query("SELECT u.streakCount FROM User u WHERE u.id = ?1")
+    int findStreakCountById(Long userId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.lastKudosSentOn = ?2, u.streakCount = ?3 WHERE u.id = ?1")
+    int updateStreakState(Long userId, LocalDate lastKudosSentOn, int streakCount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.kudosReceived = u.kudosReceived + ?2 WHERE u.id = ?1")
+    int creditKudosReceived(Long userId, int amount);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = ?2 WHERE u.id = ?1")
+    int updatePassword(Long userId, String password);
+
+    @Query("SELECT u.role AS role, u.enabled AS enabled FROM User u WHERE u.id = ?1")
+    Optional<AccessRow> findAccessById(Long id);
+
+    interface AccessRow {
+        Role getRole();
+
+        Boolean getEnabled();
+    }
+
+    interface LeaderboardRow {
+        Long getId();
+
+        String getName();
+
+        String getAvatarUrl();
+
+        Role getRole();
+
+        Integer getKudosReceived();
+    }
+
+    interface DirectoryRow {
+        Long getId();
+
+        String getName();
+
+        String getEmail();
+
+        String getAvatarUrl();
+
+        Role getRole();
+    }
 }
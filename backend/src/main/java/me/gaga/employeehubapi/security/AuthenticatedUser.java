@@ -0,0 +1,16 @@
+package me.gaga.employeehubapi.security;
+
+import me.gaga.employeehubapi.entity.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+
+// Principal built from verified token claims; load the full User through CurrentUser when an endpoint needs it
+public record AuthenticatedUser(Long id, String email, Role role) {
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+}
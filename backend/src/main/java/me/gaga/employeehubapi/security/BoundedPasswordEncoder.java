@@ -0,0 +1,111 @@
+package me.gaga.employeehubapi.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.gaga.employeehubapi.exception.ServiceUnavailableException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs hashing on a small fixed pool so a login storm uses at most `threads` cores. Work beyond the queue
+// is rejected with 503 instead of piling up behind it, and request threads only wait, they never hash.
+// Admission is the only limit: anything that was queued is hashed, so the queue is sized to drain in max-wait.
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rejected = meterRegistry.counter("security.password.rejected");
+        Gauge.builder("security.password.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Times the delegate's hash on this machine and queues only what `threads` can finish within maxWaitMs
+    public static BoundedPasswordEncoder calibrated(PasswordEncoder delegate, int threads, long maxWaitMs,
+                                                    MeterRegistry meterRegistry) {
+        long hashNanos = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            delegate.encode("calibration");
+            hashNanos = Math.min(hashNanos, System.nanoTime() - start);
+        }
+        long perThread = TimeUnit.MILLISECONDS.toNanos(maxWaitMs) / Math.max(hashNanos, 1);
+        int queueCapacity = (int) Math.max(threads, Math.min(perThread * threads, 10_000));
+        return new BoundedPasswordEncoder(delegate, threads, queueCapacity, meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Only inspects the stored hash, cheap enough for the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int queueCapacity() {
+        return executor.getQueue().remainingCapacity() + executor.getQueue().size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ServiceUnavailableException busy() {
+        rejected.increment();
+        return new ServiceUnavailableException("Too many sign-ins in progress, please retry shortly", RETRY_AFTER_SECONDS);
+    }
+}
@@ -0,0 +1,39 @@
+package me.gaga.employeehubapi.security;
+
+import lombok.RequiredArgsConstructor;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+// Reads the authenticated user from the security context, whichever principal type the filter installed
+@Component
+@RequiredArgsConstructor
+public class CurrentUser {
+
+    private final PrincipalCache principalCache;
+
+    public Long id() {
+        Object principal = principal();
+        return principal instanceof AuthenticatedUser authenticated ? authenticated.id() : ((User) principal).getId();
+    }
+
+    public Role role() {
+        Object principal = principal();
+        return principal instanceof AuthenticatedUser authenticated ? authenticated.role() : ((User) principal).getRole();
+    }
+
+    // Full user row, served from the principal cache when the principal only carries token claims
+    public User load() {
+        Object principal = principal();
+        return principal instanceof AuthenticatedUser authenticated
+                ? principalCache.get(authenticated.id())
+                : (User) principal;
+    }
+
+    private Object principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getPrincipal();
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,6 +22,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenUtil jwtTokenUtil;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationList tokenRevocationList;
+
+    // When enabled the principal comes from the verified token plus a cached role check, without loading the user
+    @Value("${security.jwt.stateless-principal:true}")
+    private boolean statelessPrincipal = true;
 
     @Override
     protected void doFilterInternal(
@@ -30,28 +37,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        JwtClaims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtTokenUtil.extractUsername(jwt);
+                claims = jwtTokenUtil.parseToken(jwt);
             } catch (Exception e) {
                 logger.error("Error extracting username from token", e);
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && claims.isAccessToken() && claims.subject() != null
+                && !tokenRevocationList.isRevoked(claims.tokenId())
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authenticationToken = statelessPrincipal && claims.userId() != null
+                    ? authenticateFromClaims(claims)
+                    : authenticateFromDatabase(claims);
 
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+            if (authenticationToken != null) {
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
@@ -59,4 +63,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(JwtClaims claims) {
+        if (claims.isExpired()) {
+            return null;
+        }
+
+        // The role in the token is only what it was at login; a demotion, disable or deletion counts from the
+        // stored row, which every node re-reads at least every access-ttl-ms
+        PrincipalCache.Access access = principalCache.access(claims.userId());
+        if (access == null || !access.enabled()) {
+            return null;
+        }
+        AuthenticatedUser principal = new AuthenticatedUser(claims.userId(), claims.subject(), access.role());
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private UsernamePasswordAuthenticationToken authenticateFromDatabase(JwtClaims claims) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.subject());
+
+        if (!jwtTokenUtil.validateToken(claims, userDetails)) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
 }
@@ -0,0 +1,24 @@
+package me.gaga.employeehubapi.security;
+
+import java.util.Date;
+
+// Verified contents of one token, parsed once per request
+public record JwtClaims(String subject, Long userId, String role, String tokenId, String type,
+                        Date issuedAt, Date expiration) {
+
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+
+    // Tokens issued before refresh tokens existed carry no type and are access tokens
+    public boolean isAccessToken() {
+        return type == null || ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH.equals(type);
+    }
+}
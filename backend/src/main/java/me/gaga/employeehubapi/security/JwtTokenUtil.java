@@ -1,9 +1,12 @@
 package me.gaga.employeehubapi.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import me.gaga.employeehubapi.entity.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,32 +16,53 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
 @Component
 public class JwtTokenUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
-
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    // The key and parser are immutable and thread-safe, so they are built once instead of per token
+    private final Key key;
+    private final JwtParser parser;
+    private final Long expiration;
+    private final Long refreshExpiration;
+    private final Counter signed;
+
+    public JwtTokenUtil(@Value("${jwt.secret}") String secret,
+                        @Value("${jwt.expiration}") Long expiration,
+                        @Value("${jwt.refresh-expiration}") Long refreshExpiration,
+                        MeterRegistry meterRegistry) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.expiration = expiration;
+        this.refreshExpiration = refreshExpiration;
+        this.signed = meterRegistry.counter("jwt.tokens.signed");
+    }
 
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("id", user.getId());
         claims.put("role", user.getRole().name());
-        return createToken(claims, user.getUsername());
+        claims.put("type", JwtClaims.ACCESS);
+        return createToken(claims, user.getUsername(), expiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
+    // Only exchangeable at /auth/refresh; carries no role so a role change takes effect on the next access token
+    public String generateRefreshToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("id", user.getId());
+        claims.put("type", JwtClaims.REFRESH);
+        return createToken(claims, user.getUsername(), refreshExpiration);
+    }
 
-        Key key = Keys.hmacShaKeyFor(secret.getBytes());
+    private String createToken(Map<String, Object> claims, String subject, long lifetime) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + lifetime);
 
+        signed.increment();
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
@@ -46,43 +70,44 @@ public class JwtTokenUtil {
                 .compact();
     }
 
+    // Verifies the signature and reads every claim the application uses in a single parse
+    public JwtClaims parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        return new JwtClaims(
+                claims.getSubject(),
+                claims.get("id", Long.class),
+                claims.get("role", String.class),
+                claims.getId(),
+                claims.get("type", String.class),
+                claims.getIssuedAt(),
+                claims.getExpiration());
+    }
+
+    public Boolean validateToken(JwtClaims claims, UserDetails userDetails) {
+        return claims.subject().equals(userDetails.getUsername()) && !claims.isExpired();
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parseToken(token), userDetails);
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).subject();
     }
 
     public Long extractUserId(String token) {
-        return extractAllClaims(token).get("id", Long.class);
+        return parseToken(token).userId();
     }
 
     public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
+        return parseToken(token).role();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return parseToken(token).expiration();
     }
 
     private Claims extractAllClaims(String token) {
-        Key key = Keys.hmacShaKeyFor(secret.getBytes());
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = extractExpiration(token);
-        return expiration.before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 }
@@ -0,0 +1,103 @@
+package me.gaga.employeehubapi.security;
+
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.exception.ResourceNotFoundException;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Short-lived, size-bounded caches keyed by user id: full User rows for endpoints that need more than the token
+// carries, and each user's current role and enabled flag, which every request is checked against.
+// Cached users are shared between requests and must be treated as read-only.
+@Component
+public class PrincipalCache {
+
+    private record Cached(User user, long loadedAt) {
+    }
+
+    public record Access(Role role, boolean enabled, long loadedAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlMs;
+    private final Map<Long, Cached> users;
+    private final Map<Long, Access> access;
+
+    // How long a role change or disable made on another node, or straight in the database, can go unnoticed here
+    @Value("${security.principal-cache.access-ttl-ms:5000}")
+    private long accessTtlMs = 5000;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${security.principal-cache.ttl-ms:10000}") long ttlMs,
+                          @Value("${security.principal-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlMs = ttlMs;
+        this.users = boundedMap(maxSize);
+        this.access = boundedMap(maxSize);
+    }
+
+    public User get(Long id) {
+        long now = System.currentTimeMillis();
+        synchronized (users) {
+            Cached cached = users.get(id);
+            if (cached != null && now - cached.loadedAt() < ttlMs) {
+                return cached.user();
+            }
+        }
+
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        synchronized (users) {
+            users.put(id, new Cached(user, now));
+        }
+        return user;
+    }
+
+    // The user's role and enabled flag as stored, or null once the user is gone
+    public Access access(Long id) {
+        long now = System.currentTimeMillis();
+        synchronized (access) {
+            Access cached = access.get(id);
+            if (cached != null && now - cached.loadedAt() < accessTtlMs) {
+                return cached.role() == null ? null : cached;
+            }
+        }
+
+        // A deleted user is cached too, with no role, so a flood of its old tokens costs one query per TTL
+        Access loaded = userRepository.findAccessById(id)
+                .map(row -> new Access(row.getRole(), Boolean.TRUE.equals(row.getEnabled()), now))
+                .orElse(new Access(null, false, now));
+        synchronized (access) {
+            access.put(id, loaded);
+        }
+        return loaded.role() == null ? null : loaded;
+    }
+
+    // Balances and other profile fields changed; the next lookup reloads the row
+    public void evict(Long id) {
+        synchronized (users) {
+            users.remove(id);
+        }
+    }
+
+    // Takes effect on this node at once; other nodes pick the change up within access-ttl-ms
+    public void roleChanged(Long id) {
+        evict(id);
+        synchronized (access) {
+            access.remove(id);
+        }
+    }
+
+    private static <V> Map<Long, V> boundedMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
@@ -0,0 +1,293 @@
+package me.gaga.employeehubapi.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.dto.ErrorResponse;
+import me.gaga.employeehubapi.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Token-bucket limits for the write endpoints a script could hammer. Runs after JwtAuthenticationFilter so
+// authenticated routes are keyed by user id; login is keyed by the submitted account and the client address, taken
+// from X-Forwarded-For only when the request came through a trusted proxy. Buckets live in one LRU map per route
+// and full buckets are evicted, so memory tracks recently active clients only.
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBuckets;
+    private final Set<String> trustedProxies;
+    private final List<Route> routes;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.max-buckets:100000}") int maxBuckets,
+                           @Value("${rate-limit.trusted-proxies:}") Set<String> trustedProxies,
+                           @Value("${rate-limit.kudos-send.capacity:20}") int sendCapacity,
+                           @Value("${rate-limit.kudos-send.refill-per-minute:60}") int sendRefill,
+                           @Value("${rate-limit.reward-redeem.capacity:5}") int redeemCapacity,
+                           @Value("${rate-limit.reward-redeem.refill-per-minute:10}") int redeemRefill,
+                           @Value("${rate-limit.login.capacity:10}") int loginCapacity,
+                           @Value("${rate-limit.login.refill-per-minute:20}") int loginRefill) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBuckets = maxBuckets;
+        this.trustedProxies = trustedProxies;
+        this.routes = List.of(
+                new Route("kudos-send", "/kudos/send", true, sendCapacity, sendRefill, meterRegistry),
+                new Route("reward-redeem", "/rewards/{rewardId}/redeem", true, redeemCapacity, redeemRefill, meterRegistry),
+                new Route("login", "/auth/login", false, loginCapacity, loginRefill, meterRegistry));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !HttpMethod.POST.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.matches(path)) {
+                Object key;
+                if (route.perUser) {
+                    key = userKey(request);
+                } else {
+                    CachedBodyRequest cached = new CachedBodyRequest(request);
+                    request = cached;
+                    key = new LoginKey(clientAddress(request), submittedAccount(cached.body));
+                }
+                long waitNanos = route.tryAcquire(key, System.nanoTime());
+                if (waitNanos > 0) {
+                    route.rejected.increment();
+                    reject(request, response, waitNanos);
+                    return;
+                }
+                break;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    int bucketCount() {
+        return routes.stream().mapToInt(Route::size).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        routes.forEach(route -> route.evictFull(now));
+    }
+
+    // User id, client address and login keys never collide: they are a Long, a String and a LoginKey
+    private Object userKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null) {
+            if (authentication.getPrincipal() instanceof AuthenticatedUser authenticated) {
+                return authenticated.id();
+            }
+            if (authentication.getPrincipal() instanceof User user) {
+                return user.getId();
+            }
+        }
+        return clientAddress(request);
+    }
+
+    // The right-most X-Forwarded-For hop that isn't one of our proxies; the header is ignored unless a proxy sent it
+    private String clientAddress(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        String forwardedFor = request.getHeader(FORWARDED_FOR);
+        if (forwardedFor == null || !trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return remoteAddress;
+    }
+
+    private String submittedAccount(byte[] body) {
+        try {
+            return objectMapper.readTree(body).path("email").asText("").trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            // Unreadable bodies share one bucket per address; the login itself rejects them with 400
+            return "";
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase())
+                .message("Rate limit exceeded, please retry later")
+                .path(request.getRequestURI())
+                .build();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private record LoginKey(String clientAddress, String account) {
+    }
+
+    // Login credentials are read here to pick the bucket, then replayed to the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private final class Route {
+
+        private final String name;
+        private final String path;
+        private final String literalPrefix;
+        private final PathPattern pattern;
+        private final boolean perUser;
+        private final int capacity;
+        private final long nanosPerToken;
+        private final Map<Object, TokenBucket> buckets;
+        private final Counter rejected;
+
+        private Route(String name, String pattern, boolean perUser, int capacity, int refillPerMinute,
+                      MeterRegistry meterRegistry) {
+            this.name = name;
+            this.path = pattern;
+            this.literalPrefix = pattern.contains("{") ? pattern.substring(0, pattern.indexOf('{')) : null;
+            this.pattern = PathPatternParser.defaultInstance.parse(pattern);
+            this.perUser = perUser;
+            this.capacity = capacity;
+            this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+            this.rejected = meterRegistry.counter("rate_limit.rejected", "route", name);
+            // Least recently used first: past max-buckets the client idle the longest is forgotten, in O(1)
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, TokenBucket> eldest) {
+                    return size() > maxBuckets;
+                }
+            };
+        }
+
+        // Literal routes are a string compare; only templated ones with a matching prefix are parsed
+        private boolean matches(String requestPath) {
+            if (literalPrefix == null) {
+                return path.equals(requestPath);
+            }
+            return requestPath.startsWith(literalPrefix) && pattern.matches(PathContainer.parsePath(requestPath));
+        }
+
+        private long tryAcquire(Object key, long now) {
+            TokenBucket bucket;
+            synchronized (buckets) {
+                bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, nanosPerToken, now));
+            }
+            return bucket.tryAcquire(now);
+        }
+
+        private int size() {
+            synchronized (buckets) {
+                return buckets.size();
+            }
+        }
+
+        // A request racing with eviction may spend a token from the dropped bucket; that costs at most one extra request
+        private void evictFull(long now) {
+            int evicted;
+            synchronized (buckets) {
+                int before = buckets.size();
+                buckets.values().removeIf(bucket -> bucket.isFull(now));
+                evicted = before - buckets.size();
+            }
+            log.debug("Evicted {} full {} rate limit buckets", evicted, name);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package me.gaga.employeehubapi.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket kept as a single timestamp: the instant it will be full again. Tokens available at `now` are
+// capacity - (fullAt - now) / nanosPerToken, so refill needs no timer and taking a token is one CAS.
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(int capacity, long nanosPerToken, long now) {
+        this.nanosPerToken = nanosPerToken;
+        this.burstNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    // Returns 0 when a token was taken, otherwise how many nanoseconds until one is available
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            long debt = next - now;
+            if (debt > burstNanos) {
+                return debt - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A full bucket is indistinguishable from a new one, so it can be dropped without losing state
+    boolean isFull(long now) {
+        return fullAt.get() <= now;
+    }
+}
@@ -0,0 +1,91 @@
+package me.gaga.employeehubapi.security;
+
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Revoked token ids (jti), stored in revoked_tokens until the token would have expired anyway, so a revocation holds
+// on every node and across restarts. Lookups are remembered for a few seconds in a bounded LRU: dropping an entry
+// only costs another query, never a revocation.
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    private record Check(boolean revoked, long checkedAt) {
+    }
+
+    private final RevokedTokenRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long checkTtlMs;
+    private final Map<String, Check> checks;
+
+    public TokenRevocationList(RevokedTokenRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${security.revocation.check-ttl-ms:5000}") long checkTtlMs,
+                               @Value("${security.revocation.cache.max-size:10000}") int maxCached) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.checkTtlMs = checkTtlMs;
+        this.checks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Check> eldest) {
+                return size() > maxCached;
+            }
+        };
+    }
+
+    // Returns false when the token was already revoked, here or on another node, so concurrent refreshes of one
+    // token cannot both succeed
+    public boolean revoke(String tokenId, Date expiresAt) {
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        boolean inserted;
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.insert(tokenId, expiry));
+            inserted = true;
+        } catch (DataIntegrityViolationException e) {
+            inserted = false;
+        }
+        remember(tokenId, true);
+        return inserted;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (checks) {
+            Check check = checks.get(tokenId);
+            // A revocation is final; only "not revoked" answers go stale
+            if (check != null && (check.revoked() || now - check.checkedAt() < checkTtlMs)) {
+                return check.revoked();
+            }
+        }
+        boolean revoked = repository.existsById(tokenId);
+        remember(tokenId, revoked);
+        return revoked;
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.prune-interval-ms:600000}")
+    public void prune() {
+        // Only rows whose token has expired: parsing rejects such a token without consulting this list
+        Integer pruned = transactionTemplate.execute(status -> repository.deleteExpiredBefore(LocalDateTime.now()));
+        log.debug("Pruned {} expired token revocations", pruned);
+    }
+
+    private void remember(String tokenId, boolean revoked) {
+        synchronized (checks) {
+            checks.put(tokenId, new Check(revoked, System.currentTimeMillis()));
+        }
+    }
+}
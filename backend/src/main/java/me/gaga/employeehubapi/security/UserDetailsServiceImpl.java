@@ -4,13 +4,15 @@ import lombok.RequiredArgsConstructor;
 import me.gaga.employeehubapi.entity.User;
 import me.gaga.employeehubapi.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -20,4 +22,14 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
         return user;
     }
+
+    // Called after a successful login whose stored hash is below the current encoding; only the password column is written
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = (User) user;
+        userRepository.updatePassword(entity.getId(), newPassword);
+        entity.setPassword(newPassword);
+        return entity;
+    }
 }
@@ -1,14 +1,20 @@
 package me.gaga.employeehubapi.service;
 
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import me.gaga.employeehubapi.dto.auth.AuthResponse;
 import me.gaga.employeehubapi.dto.auth.LoginRequest;
+import me.gaga.employeehubapi.dto.auth.RefreshTokenRequest;
 import me.gaga.employeehubapi.dto.auth.RegisterRequest;
 import me.gaga.employeehubapi.entity.Role;
 import me.gaga.employeehubapi.entity.User;
 import me.gaga.employeehubapi.exception.BadRequestException;
+import me.gaga.employeehubapi.exception.UnauthorizedException;
 import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.CurrentUser;
+import me.gaga.employeehubapi.security.JwtClaims;
 import me.gaga.employeehubapi.security.JwtTokenUtil;
+import me.gaga.employeehubapi.security.TokenRevocationList;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -24,6 +30,11 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenUtil jwtTokenUtil;
     private final AuthenticationManager authenticationManager;
+    private final KudosLeaderboard kudosLeaderboard;
+    private final UserDirectory userDirectory;
+    private final CurrentUser currentUser;
+    private final TokenRevocationList tokenRevocationList;
+    private final UserDtoMapper userDtoMapper;
 
     public AuthResponse register(RegisterRequest request) {
         // Check if email already exists
@@ -45,9 +56,10 @@ public class AuthService {
                 .build();
 
         User savedUser = userRepository.save(user);
-        String token = jwtTokenUtil.generateToken(savedUser);
+        kudosLeaderboard.update(savedUser);
+        userDirectory.update(savedUser);
 
-        return buildAuthResponse(savedUser, token);
+        return userDtoMapper.toAuthResponse(savedUser, jwtTokenUtil.generateToken(savedUser), jwtTokenUtil.generateRefreshToken(savedUser));
     }
 
     public AuthResponse login(LoginRequest request) {
@@ -57,29 +69,55 @@ public class AuthService {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         User user = (User) authentication.getPrincipal();
-        String token = jwtTokenUtil.generateToken(user);
 
-        return buildAuthResponse(user, token);
+        return userDtoMapper.toAuthResponse(user, jwtTokenUtil.generateToken(user), jwtTokenUtil.generateRefreshToken(user));
     }
 
-    public AuthResponse getCurrentUser() {
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String token = jwtTokenUtil.generateToken(user);
+    // Rotates the refresh token: the presented one is revoked, so a replayed copy is rejected
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        JwtClaims claims = parseRefreshToken(request.getRefreshToken());
+        if (!tokenRevocationList.revoke(claims.tokenId(), claims.expiration())) {
+            throw new UnauthorizedException("Refresh token has been revoked");
+        }
+
+        User user = userRepository.findById(claims.userId())
+                .orElseThrow(() -> new UnauthorizedException("Refresh token user no longer exists"));
+        if (!user.isEnabled()) {
+            throw new UnauthorizedException("User account is disabled");
+        }
 
-        return buildAuthResponse(user, token);
+        return userDtoMapper.toAuthResponse(user, jwtTokenUtil.generateToken(user), jwtTokenUtil.generateRefreshToken(user));
     }
 
-    private AuthResponse buildAuthResponse(User user, String token) {
-        return AuthResponse.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .token(token)
-                .avatarUrl(user.getAvatarUrl())
-                .kudosBalance(user.getKudosBalance())
-                .kudosReceived(user.getKudosReceived())
-                .streakCount(user.getStreakCount())
-                .build();
+    public void logout(RefreshTokenRequest request, String accessToken) {
+        JwtClaims claims = parseRefreshToken(request.getRefreshToken());
+        tokenRevocationList.revoke(claims.tokenId(), claims.expiration());
+
+        if (accessToken != null) {
+            try {
+                JwtClaims access = jwtTokenUtil.parseToken(accessToken);
+                tokenRevocationList.revoke(access.tokenId(), access.expiration());
+            } catch (JwtException e) {
+                // An expired or malformed access token cannot be used anyway
+            }
+        }
+    }
+
+    public AuthResponse getCurrentUser() {
+        // Profile only: clients keep the access token they already have and renew it through /auth/refresh
+        return userDtoMapper.toAuthResponse(currentUser.load(), null, null);
+    }
+
+    private JwtClaims parseRefreshToken(String refreshToken) {
+        JwtClaims claims;
+        try {
+            claims = jwtTokenUtil.parseToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new UnauthorizedException("Invalid refresh token", e);
+        }
+        if (!claims.isRefreshToken() || tokenRevocationList.isRevoked(claims.tokenId())) {
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+        return claims;
     }
 }
@@ -0,0 +1,249 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.entity.IdempotencyRecord;
+import me.gaga.employeehubapi.exception.BadRequestException;
+import me.gaga.employeehubapi.exception.ConflictException;
+import me.gaga.employeehubapi.repository.IdempotencyRecordRepository;
+import me.gaga.employeehubapi.security.CurrentUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Runs a write at most once per (user, Idempotency-Key) and replays its first result to retries. Duplicates on this
+// node wait for the running attempt; the unique key on idempotency_keys catches duplicates that reach another node.
+// Completed results sit in a bounded LRU in front of the table, so a burst of retries doesn't query it each time.
+// A claim that stays uncompleted past its lease (its node died, or the result could not be recorded) is taken over
+// by the next retry, which runs the request again.
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    public record Outcome<T>(T body, boolean replayed) {
+    }
+
+    private record Completed(String requestHash, String response, LocalDateTime createdAt) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final CurrentUser currentUser;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final long inFlightWaitMs;
+    private final Duration claimLease;
+    private final Map<String, Completed> completed;
+    private final Map<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              CurrentUser currentUser,
+                              ObjectMapper objectMapper,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${idempotency.in-flight-wait-ms:10000}") long inFlightWaitMs,
+                              @Value("${idempotency.claim-lease-ms:60000}") long claimLeaseMs,
+                              @Value("${idempotency.cache.max-size:10000}") int maxCached) {
+        this.repository = repository;
+        this.currentUser = currentUser;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.inFlightWaitMs = inFlightWaitMs;
+        this.claimLease = Duration.ofMillis(claimLeaseMs);
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > maxCached;
+            }
+        };
+    }
+
+    // `request` identifies what was asked for; reusing a key for a different request is rejected, not replayed
+    public <T> Outcome<T> execute(String key, String request, Class<T> type, Supplier<T> action) {
+        if (key == null) {
+            return new Outcome<>(action.get(), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Long userId = currentUser.id();
+        String scope = userId + ":" + key;
+        String requestHash = hash(request);
+
+        Completed cached = cached(scope);
+        if (cached != null) {
+            return replay(cached, requestHash, type);
+        }
+
+        CompletableFuture<Completed> mine = new CompletableFuture<>();
+        CompletableFuture<Completed> running = inFlight.putIfAbsent(scope, mine);
+        if (running != null) {
+            return replay(await(running), requestHash, type);
+        }
+        try {
+            return claimAndRun(userId, key, scope, requestHash, type, action, mine);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scope, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.prune-interval-ms:3600000}")
+    public void pruneExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        Integer pruned = transactionTemplate.execute(status -> repository.deleteCreatedBefore(cutoff));
+        synchronized (completed) {
+            completed.values().removeIf(entry -> entry.createdAt().isBefore(cutoff));
+        }
+        log.debug("Pruned {} expired idempotency keys", pruned);
+    }
+
+    int cachedCount() {
+        synchronized (completed) {
+            return completed.size();
+        }
+    }
+
+    private <T> Outcome<T> claimAndRun(Long userId, String key, String scope, String requestHash, Class<T> type,
+                                       Supplier<T> action, CompletableFuture<Completed> mine) {
+        IdempotencyRecord claim;
+        try {
+            claim = repository.save(IdempotencyRecord.builder()
+                    .userId(userId)
+                    .idempotencyKey(key)
+                    .requestHash(requestHash)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Another node, or an earlier process, holds the key
+            IdempotencyRecord existing = repository.findByUserIdAndIdempotencyKey(userId, key)
+                    .orElseThrow(() -> new ConflictException("Request with this " + HEADER + " was just released, please retry", e));
+            if (existing.getCompletedAt() == null) {
+                claim = takeOver(existing, requestHash, e);
+            } else {
+                Completed stored = remember(scope, new Completed(existing.getRequestHash(), existing.getResponse(), existing.getCreatedAt()));
+                mine.complete(stored);
+                return replay(stored, requestHash, type);
+            }
+        }
+        Long claimId = claim.getId();
+
+        T body;
+        try {
+            body = action.get();
+        } catch (RuntimeException e) {
+            // Nothing was written, so a retry with the same key may run again
+            transactionTemplate.execute(status -> repository.release(claimId));
+            throw e;
+        }
+        String response = write(body);
+        transactionTemplate.execute(status -> repository.complete(claimId, response, LocalDateTime.now()));
+        mine.complete(remember(scope, new Completed(requestHash, response, claim.getCreatedAt())));
+        return new Outcome<>(body, false);
+    }
+
+    private IdempotencyRecord takeOver(IdempotencyRecord stale, String requestHash, DataIntegrityViolationException e) {
+        if (!stale.getRequestHash().equals(requestHash)) {
+            throw new BadRequestException(HEADER + " was already used for a different request");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (stale.getCreatedAt().isAfter(now.minus(claimLease))) {
+            throw new ConflictException("A request with this " + HEADER + " is still being processed", e);
+        }
+        // Only one retry wins the stale claim; the others see it as freshly claimed
+        Integer taken = transactionTemplate.execute(status -> repository.renewClaim(stale.getId(), stale.getCreatedAt(), now));
+        if (taken == null || taken == 0) {
+            throw new ConflictException("A request with this " + HEADER + " is still being processed", e);
+        }
+        stale.setCreatedAt(now);
+        return stale;
+    }
+
+    private <T> Outcome<T> replay(Completed result, String requestHash, Class<T> type) {
+        if (!result.requestHash().equals(requestHash)) {
+            throw new BadRequestException(HEADER + " was already used for a different request");
+        }
+        try {
+            return new Outcome<>(objectMapper.readValue(result.response(), type), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", e);
+        }
+    }
+
+    private Completed await(CompletableFuture<Completed> running) {
+        try {
+            return running.get(inFlightWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The first attempt failed and wrote nothing; its error is the answer to the duplicate too
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with this " + HEADER + " is still being processed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for a request with the same " + HEADER, e);
+        }
+    }
+
+    private Completed cached(String scope) {
+        synchronized (completed) {
+            Completed entry = completed.get(scope);
+            if (entry != null && entry.createdAt().isBefore(LocalDateTime.now().minus(ttl))) {
+                completed.remove(scope);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private Completed remember(String scope, Completed entry) {
+        synchronized (completed) {
+            completed.put(scope, entry);
+        }
+        return entry;
+    }
+
+    private String write(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored for replay", e);
+        }
+    }
+
+    private static String hash(String request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package me.gaga.employeehubapi.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.dto.kudos.LeaderboardEntryDTO;
+import me.gaga.employeehubapi.entity.Kudos;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class KudosLeaderboard {
+
+    public enum Window {
+        DAY, WEEK, MONTH;
+
+        LocalDate bucketStart(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+    }
+
+    private record Bucket(LocalDate start, RankedBoard board) {
+    }
+
+    // A send or profile change seen by this node: the receiver's new total, and for a send the amount and its day
+    private record Change(Long kudosId, RankedBoard.Entry total, RankedBoard.Entry delta, LocalDate day) {
+    }
+
+    // Ids of the kudos a reload counted, so a change that reaches us twice (replayed and recorded) counts once
+    private record Replayed(long firstId, BitSet ids) {
+        void add(long kudosId) {
+            ids.set(Math.toIntExact(kudosId - firstId));
+        }
+
+        boolean contains(Long kudosId) {
+            return kudosId != null && kudosId >= firstId && kudosId - firstId <= Integer.MAX_VALUE
+                    && ids.get((int) (kudosId - firstId));
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final KudosRepository kudosRepository;
+
+    @Value("${kudos.leaderboard.rebuild-chunk-size:1000}")
+    private int rebuildChunkSize = 1000;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    // Guards the swap: boards, the replayed ids and the changes recorded while a reload was reading
+    private final Object changes = new Object();
+    private List<Change> recordedDuringReload;
+    private Replayed replayed = new Replayed(0, new BitSet());
+
+    private volatile RankedBoard allTime = new RankedBoard();
+    private final Map<Window, AtomicReference<Bucket>> buckets = emptyBuckets(LocalDate.now());
+
+    // Other API nodes update their own copies, so the boards are periodically rebuilt from the database
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${kudos.leaderboard.refresh-interval-ms:300000}",
+            fixedDelayString = "${kudos.leaderboard.refresh-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void reload() {
+        reloadLock.lock();
+        try {
+            synchronized (changes) {
+                recordedDuringReload = new ArrayList<>();
+            }
+            List<RankedBoard.Entry> users = new ArrayList<>();
+            try (Stream<UserRepository.LeaderboardRow> rows = userRepository.streamLeaderboardRows()) {
+                rows.forEach(row -> users.add(new RankedBoard.Entry(row.getId(), scoreOf(row.getKudosReceived()),
+                        row.getName(), row.getAvatarUrl(), row.getRole())));
+            }
+            RankedBoard rebuiltAllTime = new RankedBoard(users);
+            LocalDate today = LocalDate.now();
+            // Windows start at the first kudos of the longest one, so the replay never scans older history
+            Long firstId = kudosRepository.findFirstIdSince(windowsStart(today).atStartOfDay());
+            Replayed replay = new Replayed(firstId == null ? 0 : firstId, new BitSet());
+            Map<Window, Bucket> rebuilt = replayWindows(today, replay, firstId == null ? Long.MAX_VALUE : firstId - 1);
+
+            synchronized (changes) {
+                // Sends that committed after the replay read past them were only recorded; add them to the new boards
+                for (Change change : recordedDuringReload) {
+                    rebuiltAllTime.raise(change.total());
+                    if (change.delta() != null && !replay.contains(change.kudosId())) {
+                        rebuilt.forEach((window, bucket) -> increment(bucket, window, change));
+                    }
+                }
+                allTime = rebuiltAllTime;
+                rebuilt.forEach((window, bucket) -> buckets.get(window).set(bucket));
+                replayed = replay;
+            }
+            log.debug("Loaded {} users into the kudos leaderboards", users.size());
+        } finally {
+            synchronized (changes) {
+                recordedDuringReload = null;
+            }
+            reloadLock.unlock();
+        }
+    }
+
+    public void record(Kudos kudos) {
+        User receiver = kudos.getReceiver();
+        apply(new Change(kudos.getId(),
+                new RankedBoard.Entry(receiver.getId(), scoreOf(receiver.getKudosReceived()),
+                        receiver.getName(), receiver.getAvatarUrl(), receiver.getRole()),
+                new RankedBoard.Entry(receiver.getId(), kudos.getAmount(),
+                        receiver.getName(), receiver.getAvatarUrl(), receiver.getRole()),
+                kudos.getCreatedAt().toLocalDate()));
+    }
+
+    public void update(User user) {
+        apply(new Change(null, new RankedBoard.Entry(user.getId(), scoreOf(user.getKudosReceived()),
+                user.getName(), user.getAvatarUrl(), user.getRole()), null, null));
+    }
+
+    public List<LeaderboardEntryDTO> top(int limit) {
+        return allTime.top(limit);
+    }
+
+    public List<LeaderboardEntryDTO> around(Long userId, int limit) {
+        return allTime.around(userId, limit);
+    }
+
+    public List<LeaderboardEntryDTO> top(Window window, int limit) {
+        return currentBucket(window, LocalDate.now()).board().top(limit);
+    }
+
+    public List<LeaderboardEntryDTO> around(Window window, Long userId, int limit) {
+        return currentBucket(window, LocalDate.now()).board().around(userId, limit);
+    }
+
+    public int size() {
+        return allTime.size();
+    }
+
+    private void apply(Change change) {
+        synchronized (changes) {
+            if (recordedDuringReload != null) {
+                recordedDuringReload.add(change);
+            }
+            allTime.raise(change.total());
+            // The last reload may have read this send already if it committed just before that reload started
+            if (change.delta() == null || replayed.contains(change.kudosId())) {
+                return;
+            }
+            for (Window window : Window.values()) {
+                increment(currentBucket(window, change.day()), window, change);
+            }
+        }
+    }
+
+    // Kudos that belong to an already closed bucket no longer count towards any window
+    private static void increment(Bucket bucket, Window window, Change change) {
+        if (bucket.start().equals(window.bucketStart(change.day()))) {
+            bucket.board().increment(change.delta());
+        }
+    }
+
+    // Rolling over swaps in an empty bucket; nothing is recomputed
+    private Bucket currentBucket(Window window, LocalDate day) {
+        AtomicReference<Bucket> ref = buckets.get(window);
+        LocalDate start = window.bucketStart(day);
+        Bucket bucket = ref.get();
+        while (bucket.start().isBefore(start)) {
+            Bucket next = new Bucket(start, new RankedBoard());
+            if (ref.compareAndSet(bucket, next)) {
+                return next;
+            }
+            bucket = ref.get();
+        }
+        return bucket;
+    }
+
+    // Replays the kudos of the open buckets in id-ordered chunks; each chunk is a seek on the primary key
+    private Map<Window, Bucket> replayWindows(LocalDate today, Replayed replay, long afterId) {
+        LocalDate since = windowsStart(today);
+        Map<Window, Map<Long, RankedBoard.Entry>> totals = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            totals.put(window, new HashMap<>());
+        }
+
+        List<KudosRepository.ReceivedKudos> chunk;
+        do {
+            chunk = kudosRepository.findReceivedSince(since.atStartOfDay(), afterId, PageRequest.of(0, rebuildChunkSize));
+            for (KudosRepository.ReceivedKudos row : chunk) {
+                LocalDate day = row.getCreatedAt().toLocalDate();
+                RankedBoard.Entry delta = new RankedBoard.Entry(row.getReceiverId(), row.getAmount(),
+                        row.getReceiverName(), row.getReceiverAvatarUrl(), row.getReceiverRole());
+                for (Window window : Window.values()) {
+                    if (!day.isBefore(window.bucketStart(today))) {
+                        totals.get(window).merge(delta.id(), delta, (a, b) ->
+                                new RankedBoard.Entry(a.id(), a.score() + b.score(), a.name(), a.avatarUrl(), a.role()));
+                    }
+                }
+                afterId = row.getId();
+                replay.add(afterId);
+            }
+        } while (chunk.size() == rebuildChunkSize);
+
+        Map<Window, Bucket> rebuilt = new EnumMap<>(Window.class);
+        totals.forEach((window, entries) ->
+                rebuilt.put(window, new Bucket(window.bucketStart(today), new RankedBoard(entries.values()))));
+        return rebuilt;
+    }
+
+    private static LocalDate windowsStart(LocalDate today) {
+        LocalDate since = today;
+        for (Window window : Window.values()) {
+            LocalDate start = window.bucketStart(today);
+            since = start.isBefore(since) ? start : since;
+        }
+        return since;
+    }
+
+    private static Map<Window, AtomicReference<Bucket>> emptyBuckets(LocalDate today) {
+        Map<Window, AtomicReference<Bucket>> buckets = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            buckets.put(window, new AtomicReference<>(new Bucket(window.bucketStart(today), new RankedBoard())));
+        }
+        return buckets;
+    }
+
+    private static int scoreOf(Integer kudosReceived) {
+        return kudosReceived == null ? 0 : kudosReceived;
+    }
+}
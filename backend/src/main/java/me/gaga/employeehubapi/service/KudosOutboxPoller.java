@@ -0,0 +1,81 @@
+package me.gaga.employeehubapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.entity.KudosOutbox;
+import me.gaga.employeehubapi.repository.KudosOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class KudosOutboxPoller {
+
+    private final KudosOutboxRepository kudosOutboxRepository;
+    private final TeamsWebhookService teamsWebhookService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter drainedCounter;
+    private final AtomicLong backlog;
+
+    @Value("${kudos.outbox.batch-size:50}")
+    private int batchSize;
+
+    // Longer than the slowest delivery: every Teams attempt timing out plus the backoff between them
+    @Value("${kudos.outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    public KudosOutboxPoller(KudosOutboxRepository kudosOutboxRepository,
+                             TeamsWebhookService teamsWebhookService,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry) {
+        this.kudosOutboxRepository = kudosOutboxRepository;
+        this.teamsWebhookService = teamsWebhookService;
+        this.transactionTemplate = transactionTemplate;
+        this.drainedCounter = meterRegistry.counter("kudos.outbox.drained");
+        // Counted once per poll rather than on every scrape
+        this.backlog = meterRegistry.gauge("kudos.outbox.backlog", new AtomicLong());
+    }
+
+    @Scheduled(fixedDelayString = "${kudos.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        int drained;
+        do {
+            drained = drainBatch();
+        } while (drained == batchSize);
+        backlog.set(kudosOutboxRepository.count());
+    }
+
+    private int drainBatch() {
+        // The claim commits before Teams is called, so no row lock or connection is held while the webhook answers
+        List<KudosOutbox> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(KudosOutbox::getId).toList();
+
+        if (!teamsWebhookService.sendKudosNotifications(batch)) {
+            log.warn("Teams delivery failed, leaving {} kudos notification(s) in the outbox", batch.size());
+            transactionTemplate.executeWithoutResult(status -> kudosOutboxRepository.release(ids));
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> kudosOutboxRepository.deleteAllByIdInBatch(ids));
+        drainedCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    private List<KudosOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<KudosOutbox> batch = kudosOutboxRepository.claimBatch(now, PageRequest.of(0, batchSize));
+        batch.forEach(row -> row.setClaimedUntil(now.plusNanos(leaseMs * 1_000_000)));
+        return batch;
+    }
+}
@@ -1,103 +1,261 @@
 package me.gaga.employeehubapi.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.dto.kudos.CompactFeedDTO;
+import me.gaga.employeehubapi.dto.kudos.CompactKudosDTO;
 import me.gaga.employeehubapi.dto.kudos.KudosDTO;
+import me.gaga.employeehubapi.dto.kudos.LeaderboardEntryDTO;
 import me.gaga.employeehubapi.dto.kudos.SendKudosRequest;
 import me.gaga.employeehubapi.dto.user.UserDTO;
 import me.gaga.employeehubapi.entity.Kudos;
-import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.entity.KudosOutbox;
 import me.gaga.employeehubapi.exception.BadRequestException;
+import me.gaga.employeehubapi.exception.ConflictException;
 import me.gaga.employeehubapi.exception.ResourceNotFoundException;
+import me.gaga.employeehubapi.repository.KudosOutboxRepository;
 import me.gaga.employeehubapi.repository.KudosRepository;
 import me.gaga.employeehubapi.repository.UserRepository;
-import org.springframework.data.domain.Page;
+import me.gaga.employeehubapi.security.CurrentUser;
+import me.gaga.employeehubapi.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class KudosService {
 
+    private static final int MAX_LEADERBOARD_LIMIT = 100;
+    private static final int MAX_FEED_LIMIT = 100;
+
     private final KudosRepository kudosRepository;
     private final UserRepository userRepository;
-    private final TeamsWebhookService teamsWebhookService;
+    private final KudosOutboxRepository kudosOutboxRepository;
+    private final KudosLeaderboard kudosLeaderboard;
+    private final RecentKudosFeed recentKudosFeed;
+    private final KudosStream kudosStream;
+    private final CurrentUser currentUser;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate transactionTemplate;
+    private final UserDtoMapper userDtoMapper;
+
+    @Value("${kudos.transfer.max-attempts:5}")
+    private int transferMaxAttempts;
+
+    @Value("${kudos.transfer.backoff-ms:20}")
+    private long transferBackoffMs;
 
     public KudosDTO sendKudos(SendKudosRequest request) {
-        User sender = getCurrentUser();
-        if (sender.getId().equals(request.getReceiverId())) {
+        Long senderId = currentUser.id();
+        if (senderId.equals(request.getReceiverId())) {
             throw new BadRequestException("Cannot send kudos to yourself");
         }
 
-        User receiver = userRepository.findById(request.getReceiverId())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", request.getReceiverId()));
-
-        if (sender.getKudosBalance() < request.getAmount()) {
-            throw new BadRequestException("Insufficient kudos balance");
+        PessimisticLockingFailureException lastFailure = null;
+        for (int attempt = 1; attempt <= transferMaxAttempts; attempt++) {
+            try {
+                Kudos savedKudos = transactionTemplate.execute(status -> transfer(senderId, request));
+                principalCache.evict(senderId);
+                principalCache.evict(request.getReceiverId());
+                kudosLeaderboard.record(savedKudos);
+                KudosDTO sent = toDto(savedKudos);
+                kudosStream.publish(sent);
+                return sent;
+            } catch (PessimisticLockingFailureException e) {
+                lastFailure = e;
+                log.debug("Kudos transfer attempt {} from user {} failed: {}", attempt, senderId, e.getMessage());
+                backoff(attempt);
+            }
         }
+        throw new ConflictException("Kudos transfer could not be completed, please retry", lastFailure);
+    }
 
-        boolean isStreak = isDailyStreak(sender);
+    private Kudos transfer(Long senderId, SendKudosRequest request) {
+        Long receiverId = request.getReceiverId();
+        int amount = request.getAmount();
 
-        int totalAmount = request.getAmount() + (isStreak ? Math.max(1, (int)Math.floor(request.getAmount() * 0.1)) : 0);
+        // Rows are always locked in ascending id order so A->B and B->A transfers cannot deadlock
+        boolean receiverFirst = receiverId < senderId;
+        if (receiverFirst) {
+            credit(receiverId, amount);
+        }
+        debit(senderId, amount, LocalDate.now());
 
-        sender.setKudosBalance(sender.getKudosBalance() - request.getAmount());
-        receiver.setKudosReceived(receiver.getKudosReceived() + totalAmount);
-        if (isStreak) {
-            sender.setStreakCount(sender.getStreakCount() + 1);
-        } else {
-            sender.setStreakCount(1);
+        // The debit advanced the streak under our row lock; above 1 means the sender already sent today
+        boolean isStreak = userRepository.findStreakCountById(senderId) > 1;
+        int bonus = isStreak ? Math.max(1, (int)Math.floor(amount * 0.1)) : 0;
+        int totalAmount = amount + bonus;
+
+        int pending = receiverFirst ? bonus : totalAmount;
+        if (pending > 0) {
+            credit(receiverId, pending);
         }
-        userRepository.save(sender);
-        userRepository.save(receiver);
 
         Kudos kudos = Kudos.builder()
-                .sender(sender)
-                .receiver(receiver)
+                .sender(userRepository.findById(senderId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User", "id", senderId)))
+                .receiver(userRepository.findById(receiverId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User", "id", receiverId)))
                 .amount(totalAmount)
                 .message(request.getMessage())
                 .isStreakBonus(isStreak)
                 .build();
 
         Kudos savedKudos = kudosRepository.save(kudos);
-        
-        // Send notification to Teams channel
-        teamsWebhookService.sendKudosNotification(
-                sender.getName(),
-                receiver.getName(),
-                totalAmount,
-                request.getMessage()
-        );
-
-        return toDto(savedKudos);
+
+        // Queue the Teams notification in the same transaction; KudosOutboxPoller delivers it after commit
+        kudosOutboxRepository.save(KudosOutbox.builder()
+                .kudosId(savedKudos.getId())
+                .senderName(savedKudos.getSender().getName())
+                .receiverName(savedKudos.getReceiver().getName())
+                .amount(totalAmount)
+                .message(request.getMessage())
+                .build());
+
+        return savedKudos;
+    }
+
+    private void debit(Long senderId, int amount, LocalDate today) {
+        if (userRepository.debitKudosBalance(senderId, amount, today) == 0) {
+            throw new BadRequestException("Insufficient kudos balance");
+        }
+    }
+
+    private void credit(Long receiverId, int amount) {
+        if (userRepository.creditKudosReceived(receiverId, amount) == 0) {
+            throw new ResourceNotFoundException("User", "id", receiverId);
+        }
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, transferBackoffMs * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Kudos transfer was interrupted", e);
+        }
     }
 
     public List<KudosDTO> feed(int page, int size) {
+        List<KudosDTO> recent = recentKudosFeed.page(page, size);
+        if (recent != null) {
+            return recent;
+        }
+
         Pageable pageable = PageRequest.of(page, size);
-        Page<Kudos> pageResult = kudosRepository.findAllByOrderByCreatedAtDesc(pageable);
-        return pageResult.getContent().stream().map(this::toDto).collect(Collectors.toList());
+        Slice<KudosRepository.FeedRow> slice = kudosRepository.findFeedPage(pageable);
+        return toDtos(slice.getContent());
     }
 
-    public List<UserDTO> leaderboard() {
-        return userRepository.findTopUsersByKudosReceived().stream().map(this::toUserDto).collect(Collectors.toList());
+    // Sends on other API nodes only reach this node's buffer through the periodic refresh
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${kudos.feed.recent-refresh-interval-ms:10000}",
+            fixedDelayString = "${kudos.feed.recent-refresh-interval-ms:10000}")
+    public void refreshRecentFeed() {
+        Slice<KudosRepository.FeedRow> slice = kudosRepository.findFeedPage(PageRequest.of(0, recentKudosFeed.capacity()));
+        recentKudosFeed.merge(toDtos(slice.getContent()));
     }
 
-    private boolean isDailyStreak(User sender) {
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        return !kudosRepository.findBySenderAndCreatedAtAfter(sender, startOfDay).isEmpty();
+    public List<KudosDTO> feedBefore(String before, int limit) {
+        if (limit < 1 || limit > MAX_FEED_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_FEED_LIMIT);
+        }
+        if (before == null) {
+            return feed(0, limit);
+        }
+
+        int separator = before.lastIndexOf(',');
+        LocalDateTime createdAt;
+        Long id;
+        try {
+            createdAt = LocalDateTime.parse(before.substring(0, separator));
+            id = Long.parseLong(before.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor must be formatted as <createdAt>,<id>", e);
+        }
+
+        Slice<KudosRepository.FeedRow> slice = kudosRepository.findFeedBefore(createdAt, id, PageRequest.of(0, limit));
+        return toDtos(slice.getContent());
+    }
+
+    // The same page with every sender and receiver listed once instead of once per kudos
+    public CompactFeedDTO compact(List<KudosDTO> page) {
+        List<CompactKudosDTO> kudos = new ArrayList<>(page.size());
+        Map<Long, UserDTO> users = new LinkedHashMap<>();
+        for (KudosDTO k : page) {
+            users.putIfAbsent(k.getSender().getId(), k.getSender());
+            users.putIfAbsent(k.getReceiver().getId(), k.getReceiver());
+            kudos.add(CompactKudosDTO.builder()
+                    .id(k.getId())
+                    .senderId(k.getSender().getId())
+                    .receiverId(k.getReceiver().getId())
+                    .amount(k.getAmount())
+                    .message(k.getMessage())
+                    .createdAt(k.getCreatedAt())
+                    .isStreakBonus(k.getIsStreakBonus())
+                    .build());
+        }
+        return CompactFeedDTO.builder()
+                .kudos(kudos)
+                .users(users)
+                .build();
+    }
+
+    public SseEmitter stream(Long lastEventId) {
+        return kudosStream.subscribe(lastEventId);
+    }
+
+    public List<LeaderboardEntryDTO> leaderboard(int limit, String around, String window) {
+        if (limit < 1 || limit > MAX_LEADERBOARD_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LEADERBOARD_LIMIT);
+        }
+        if (around != null && !"me".equals(around)) {
+            throw new BadRequestException("Unsupported leaderboard position: " + around);
+        }
+
+        if (window == null) {
+            return around == null
+                    ? kudosLeaderboard.top(limit)
+                    : kudosLeaderboard.around(currentUser.id(), limit);
+        }
+        KudosLeaderboard.Window bucket = parseWindow(window);
+        return around == null
+                ? kudosLeaderboard.top(bucket, limit)
+                : kudosLeaderboard.around(bucket, currentUser.id(), limit);
+    }
+
+    private KudosLeaderboard.Window parseWindow(String window) {
+        try {
+            return KudosLeaderboard.Window.valueOf(window.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported leaderboard window: " + window);
+        }
     }
 
     private KudosDTO toDto(Kudos k) {
         return KudosDTO.builder()
                 .id(k.getId())
-                .sender(toUserDto(k.getSender()))
-                .receiver(toUserDto(k.getReceiver()))
+                .sender(userDtoMapper.toDto(k.getSender()))
+                .receiver(userDtoMapper.toDto(k.getReceiver()))
                 .amount(k.getAmount())
                 .message(k.getMessage())
                 .createdAt(k.getCreatedAt())
@@ -105,24 +263,20 @@ public class KudosService {
                 .build();
     }
 
-    private UserDTO toUserDto(User user) {
-        return UserDTO.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .avatarUrl(user.getAvatarUrl())
-                .kudosBalance(user.getKudosBalance())
-                .kudosReceived(user.getKudosReceived())
-                .streakCount(user.getStreakCount())
-                .build();
-    }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (User) authentication.getPrincipal();
+    List<KudosDTO> toDtos(List<KudosRepository.FeedRow> rows) {
+        UserDtoMapper.Scope users = userDtoMapper.scope();
+        List<KudosDTO> kudos = new ArrayList<>(rows.size());
+        for (KudosRepository.FeedRow row : rows) {
+            kudos.add(KudosDTO.builder()
+                    .id(row.getId())
+                    .sender(users.senderOf(row))
+                    .receiver(users.receiverOf(row))
+                    .amount(row.getAmount())
+                    .message(row.getMessage())
+                    .createdAt(row.getCreatedAt())
+                    .isStreakBonus(row.getIsStreakBonus())
+                    .build());
+        }
+        return kudos;
     }
 }
-
-
-
@@ -0,0 +1,185 @@
+package me.gaga.employeehubapi.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.dto.kudos.KudosDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fans committed kudos out to SSE subscribers. Publishing only enqueues; each subscriber is drained by
+// one delivery thread at a time, and a subscriber whose queue fills up is disconnected instead of
+// holding back everyone else. Evicted clients reconnect with Last-Event-ID and resume from RecentKudosFeed.
+// Eviction interrupts a send stuck on the subscriber's socket, so its delivery thread returns to the pool.
+@Component
+@Slf4j
+public class KudosStream {
+
+    interface Sink {
+        void send(KudosDTO kudos) throws IOException;
+
+        void close();
+    }
+
+    private final RecentKudosFeed recentKudosFeed;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final ExecutorService delivery;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+
+    public KudosStream(RecentKudosFeed recentKudosFeed,
+                       @Value("${kudos.stream.queue-capacity:64}") int queueCapacity,
+                       @Value("${kudos.stream.delivery-threads:4}") int deliveryThreads,
+                       @Value("${kudos.stream.timeout-ms:1800000}") long timeoutMs,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.recentKudosFeed = recentKudosFeed;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        if (virtualThreads) {
+            // One drain per subscriber at most, so a slow socket only ever blocks its own virtual thread
+            this.delivery = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("kudos-stream-", 1).factory());
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.delivery = Executors.newFixedThreadPool(deliveryThreads, runnable -> {
+                Thread thread = new Thread(runnable, "kudos-stream-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = register(new Sink() {
+            @Override
+            public void send(KudosDTO kudos) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(kudos.getId()))
+                        .name("kudos")
+                        .data(kudos, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        }, lastEventId);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    // History and live delivery change under one lock, so a resuming subscriber sees each kudos exactly once
+    public void publish(KudosDTO kudos) {
+        synchronized (lock) {
+            recentKudosFeed.add(kudos);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(kudos);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    Subscriber register(Sink sink, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(sink);
+        synchronized (lock) {
+            if (lastEventId != null) {
+                List<KudosDTO> missed = recentKudosFeed.after(lastEventId);
+                missed.subList(Math.max(0, missed.size() - queueCapacity), missed.size()).forEach(subscriber::offer);
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        delivery.shutdownNow();
+        subscribers.forEach(Subscriber::evict);
+    }
+
+    final class Subscriber {
+
+        private final Sink sink;
+        private final BlockingQueue<KudosDTO> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Guarded by this; the thread currently sending to the sink, if any
+        private Thread sending;
+
+        private Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+
+        private void offer(KudosDTO kudos) {
+            if (!queue.offer(kudos)) {
+                log.debug("Disconnecting kudos stream subscriber that fell {} events behind", queueCapacity);
+                evict();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                delivery.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            synchronized (this) {
+                sending = Thread.currentThread();
+            }
+            try {
+                KudosDTO next;
+                while ((next = queue.poll()) != null) {
+                    sink.send(next);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Kudos stream subscriber disconnected: {}", e.getMessage());
+                evict();
+                return;
+            } finally {
+                synchronized (this) {
+                    sending = null;
+                    // An eviction's interrupt is meant for this subscriber only, not the pool thread's next task
+                    Thread.interrupted();
+                }
+                draining.set(false);
+            }
+            // An offer may have landed between the last poll and releasing the flag
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                delivery.execute(this::drain);
+            }
+        }
+
+        private void evict() {
+            if (subscribers.remove(this)) {
+                queue.clear();
+                synchronized (this) {
+                    if (sending != null && sending != Thread.currentThread()) {
+                        sending.interrupt();
+                    }
+                }
+                try {
+                    sink.close();
+                } catch (RuntimeException e) {
+                    log.debug("Failed to close kudos stream subscriber: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
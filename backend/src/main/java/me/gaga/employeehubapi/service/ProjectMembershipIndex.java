@@ -0,0 +1,149 @@
+package me.gaga.employeehubapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.repository.ProjectRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// user id -> project ids, so "my projects" needs no membership lookup at all. Changes made through ProjectService
+// are applied once their transaction commits; other API nodes and direct SQL are caught up by the periodic reload.
+@Component
+@Slf4j
+public class ProjectMembershipIndex {
+
+    private final ProjectRepository projectRepository;
+    private final boolean enabled;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // Guarded by this; lookups are a map get and a small sort, so one lock is not worth splitting
+    private Map<Long, Set<Long>> projectsByUser = new HashMap<>();
+    private Map<Long, Set<Long>> membersByProject = new HashMap<>();
+    // Member sets committed while a reload streams memberships, newest per project; null when no reload is running
+    private Map<Long, Set<Long>> replacedDuringReload;
+
+    public ProjectMembershipIndex(ProjectRepository projectRepository,
+                                  @Value("${projects.membership-index.enabled:false}") boolean enabled) {
+        this.projectRepository = projectRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${projects.membership-index.refresh-interval-ms:300000}",
+            fixedDelayString = "${projects.membership-index.refresh-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            synchronized (this) {
+                replacedDuringReload = new LinkedHashMap<>();
+            }
+            Map<Long, Set<Long>> projectsByUser = new HashMap<>();
+            Map<Long, Set<Long>> membersByProject = new HashMap<>();
+            try (Stream<ProjectRepository.Membership> rows = projectRepository.streamMemberships()) {
+                rows.forEach(row -> {
+                    projectsByUser.computeIfAbsent(row.getUserId(), id -> new HashSet<>()).add(row.getProjectId());
+                    membersByProject.computeIfAbsent(row.getProjectId(), id -> new HashSet<>()).add(row.getUserId());
+                });
+            }
+            synchronized (this) {
+                // The stream may have read a change committed during it, or not; a member set is the project's whole
+                // membership, so replaying it is right either way
+                replacedDuringReload.forEach((projectId, memberIds) ->
+                        replace(projectsByUser, membersByProject, projectId, memberIds));
+                this.projectsByUser = projectsByUser;
+                this.membersByProject = membersByProject;
+            }
+            log.debug("Loaded memberships of {} users into the project membership index", projectsByUser.size());
+        } finally {
+            synchronized (this) {
+                replacedDuringReload = null;
+            }
+            reloadLock.unlock();
+        }
+    }
+
+    public synchronized List<Long> projectsOf(Long userId) {
+        Set<Long> projects = projectsByUser.get(userId);
+        return projects == null ? List.of() : projects.stream().sorted().toList();
+    }
+
+    public void put(Long projectId, Collection<Long> memberIds) {
+        if (enabled) {
+            afterCommit(() -> replace(projectId, Set.copyOf(memberIds)));
+        }
+    }
+
+    public void remove(Long projectId) {
+        if (enabled) {
+            afterCommit(() -> replace(projectId, Set.of()));
+        }
+    }
+
+    private synchronized void replace(Long projectId, Set<Long> memberIds) {
+        if (replacedDuringReload != null) {
+            replacedDuringReload.remove(projectId);
+            replacedDuringReload.put(projectId, memberIds);
+        }
+        replace(projectsByUser, membersByProject, projectId, memberIds);
+    }
+
+    private static void replace(Map<Long, Set<Long>> projectsByUser, Map<Long, Set<Long>> membersByProject,
+                                Long projectId, Set<Long> memberIds) {
+        Set<Long> previous = membersByProject.getOrDefault(projectId, Set.of());
+        for (Long userId : previous) {
+            if (!memberIds.contains(userId)) {
+                Set<Long> projects = projectsByUser.get(userId);
+                projects.remove(projectId);
+                if (projects.isEmpty()) {
+                    projectsByUser.remove(userId);
+                }
+            }
+        }
+        for (Long userId : memberIds) {
+            projectsByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(projectId);
+        }
+        if (memberIds.isEmpty()) {
+            membersByProject.remove(projectId);
+        } else {
+            membersByProject.put(projectId, new HashSet<>(memberIds));
+        }
+    }
+
+    // A rolled back change never reaches the index
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
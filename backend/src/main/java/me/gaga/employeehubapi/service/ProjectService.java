@@ -3,19 +3,25 @@ package me.gaga.employeehubapi.service;
 import lombok.RequiredArgsConstructor;
 import me.gaga.employeehubapi.dto.project.CreateProjectRequest;
 import me.gaga.employeehubapi.dto.project.ProjectDTO;
+import me.gaga.employeehubapi.dto.project.ProjectSummaryDTO;
 import me.gaga.employeehubapi.dto.project.UpdateProjectRequest;
 import me.gaga.employeehubapi.dto.user.UserDTO;
 import me.gaga.employeehubapi.entity.Project;
 import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.exception.BadRequestException;
 import me.gaga.employeehubapi.exception.ResourceNotFoundException;
 import me.gaga.employeehubapi.repository.ProjectRepository;
 import me.gaga.employeehubapi.repository.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import me.gaga.employeehubapi.security.CurrentUser;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -23,82 +29,167 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProjectService {
 
+    private static final int MEMBER_LOOKUP_CHUNK = 500;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MEMBER_AVATAR_PREVIEW = 5;
+
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
+    private final CurrentUser currentUser;
+    private final ProjectMembershipIndex membershipIndex;
+    private final UserDtoMapper userDtoMapper;
 
     public List<ProjectDTO> listProjects() {
-        return projectRepository.findAll().stream().map(this::toDto).collect(Collectors.toList());
+        // Owners and members recur across projects; each is mapped once for the whole list
+        UserDtoMapper.Scope users = userDtoMapper.scope();
+        return projectRepository.findAll().stream().map(project -> toDto(project, users)).collect(Collectors.toList());
+    }
+
+    // Two queries per page whatever the project sizes: the summaries with member counts, then the avatar previews
+    public List<ProjectSummaryDTO> listProjectSummaries(int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("Page must not be negative");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        return toSummaries(projectRepository.findSummaries(PageRequest.of(page, size)).getContent());
+    }
+
+    // Projects the current user is a member of; cost follows their memberships, not the number of projects
+    public List<ProjectSummaryDTO> listMyProjects() {
+        Long userId = currentUser.id();
+        if (!membershipIndex.isEnabled()) {
+            return toSummaries(projectRepository.findSummariesByMemberId(userId));
+        }
+        List<Long> projectIds = membershipIndex.projectsOf(userId);
+        return projectIds.isEmpty() ? List.of() : toSummaries(projectRepository.findSummariesByIdIn(projectIds));
     }
 
+    // Members ordered by user id; pass the last id of a page as `after` to get the next one
+    public List<UserDTO> listMembers(Long projectId, Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<User> members = projectRepository.findMembersAfter(projectId, after != null ? after : 0L, PageRequest.ofSize(limit))
+                .getContent();
+        if (members.isEmpty() && !projectRepository.existsById(projectId)) {
+            throw new ResourceNotFoundException("Project", "id", projectId);
+        }
+        return members.stream().map(userDtoMapper::toDto).toList();
+    }
+
+    @Transactional
     public ProjectDTO createProject(CreateProjectRequest request) {
-        User currentUser = getCurrentUser();
+        User owner = currentUser.load();
         Set<User> members = loadMembers(request.getMemberIds());
 
         Project project = Project.builder()
                 .name(request.getName())
                 .description(request.getDescription())
-                .owner(currentUser)
+                .owner(owner)
                 .members(members)
                 .build();
 
-        return toDto(projectRepository.save(project));
+        Project saved = projectRepository.save(project);
+        membershipIndex.put(saved.getId(), memberIds(saved));
+        return toDto(saved, userDtoMapper.scope());
     }
 
+    @Transactional
     public ProjectDTO updateProject(Long id, UpdateProjectRequest request) {
         Project project = projectRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Project", "id", id));
 
         project.setName(request.getName());
         project.setDescription(request.getDescription());
-        project.setMembers(loadMembers(request.getMemberIds()));
+        updateMembers(project, request.getMemberIds());
 
-        return toDto(projectRepository.save(project));
+        Project saved = projectRepository.save(project);
+        membershipIndex.put(saved.getId(), memberIds(saved));
+        return toDto(saved, userDtoMapper.scope());
     }
 
+    @Transactional
     public void deleteProject(Long id) {
         Project project = projectRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Project", "id", id));
         projectRepository.delete(project);
+        membershipIndex.remove(id);
+    }
+
+    // Edits the loaded collection in place so Hibernate writes only the removed and added project_members rows;
+    // replacing the set would delete and reinsert every membership
+    private void updateMembers(Project project, Set<Long> memberIds) {
+        Set<Long> wanted = memberIds == null ? Set.of() : memberIds;
+        Set<User> members = project.getMembers();
+        Set<Long> current = members.stream().map(User::getId).collect(Collectors.toSet());
+        Set<User> added = loadMembers(wanted.stream().filter(uid -> !current.contains(uid)).collect(Collectors.toSet()));
+
+        members.removeIf(member -> !wanted.contains(member.getId()));
+        members.addAll(added);
     }
 
+    // One IN query per chunk instead of a lookup per id; every unknown id is reported in the same error
     private Set<User> loadMembers(Set<Long> memberIds) {
-        if (memberIds == null) return new HashSet<>();
-        return memberIds.stream()
-                .map(uid -> userRepository.findById(uid)
-                        .orElseThrow(() -> new ResourceNotFoundException("User", "id", uid)))
-                .collect(Collectors.toSet());
+        Set<User> members = new HashSet<>();
+        if (memberIds == null || memberIds.isEmpty()) return members;
+
+        List<Long> ids = new ArrayList<>(memberIds);
+        for (int from = 0; from < ids.size(); from += MEMBER_LOOKUP_CHUNK) {
+            members.addAll(userRepository.findAllById(ids.subList(from, Math.min(ids.size(), from + MEMBER_LOOKUP_CHUNK))));
+        }
+
+        if (members.size() < memberIds.size()) {
+            Set<Long> found = members.stream().map(User::getId).collect(Collectors.toSet());
+            List<Long> missing = memberIds.stream().filter(uid -> !found.contains(uid)).sorted().toList();
+            throw new ResourceNotFoundException("User", "id", missing.size() == 1 ? missing.get(0) : missing);
+        }
+        return members;
     }
 
-    private ProjectDTO toDto(Project project) {
+    // One extra query fetches the avatar previews of every project on the page
+    private List<ProjectSummaryDTO> toSummaries(List<ProjectRepository.ProjectSummaryRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<String>> avatars = new HashMap<>();
+        List<Long> projectIds = rows.stream().map(ProjectRepository.ProjectSummaryRow::getId).toList();
+        for (ProjectRepository.MemberAvatar avatar : projectRepository.findMemberAvatars(projectIds, MEMBER_AVATAR_PREVIEW)) {
+            avatars.computeIfAbsent(avatar.getProjectId(), id -> new ArrayList<>()).add(avatar.getAvatarUrl());
+        }
+
+        return rows.stream()
+                .map(row -> ProjectSummaryDTO.builder()
+                        .id(row.getId())
+                        .name(row.getName())
+                        .description(row.getDescription())
+                        .createdAt(row.getCreatedAt())
+                        .updatedAt(row.getUpdatedAt())
+                        .ownerId(row.getOwnerId())
+                        .ownerName(row.getOwnerName())
+                        .memberCount(row.getMemberCount())
+                        .memberAvatars(avatars.getOrDefault(row.getId(), List.of()))
+                        .build())
+                .toList();
+    }
+
+    private static Set<Long> memberIds(Project project) {
+        return project.getMembers().stream().map(User::getId).collect(Collectors.toSet());
+    }
+
+    private ProjectDTO toDto(Project project, UserDtoMapper.Scope users) {
         return ProjectDTO.builder()
                 .id(project.getId())
                 .name(project.getName())
                 .description(project.getDescription())
                 .createdAt(project.getCreatedAt())
                 .updatedAt(project.getUpdatedAt())
-                .owner(toUserDto(project.getOwner()))
-                .members(project.getMembers().stream().map(this::toUserDto).collect(Collectors.toSet()))
-                .build();
-    }
-
-    private UserDTO toUserDto(User user) {
-        return UserDTO.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .avatarUrl(user.getAvatarUrl())
-                .kudosBalance(user.getKudosBalance())
-                .kudosReceived(user.getKudosReceived())
-                .streakCount(user.getStreakCount())
+                .owner(users.of(project.getOwner()))
+                .members(project.getMembers().stream().map(users::of).collect(Collectors.toSet()))
                 .build();
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (User) authentication.getPrincipal();
-    }
 }
-
-
-
@@ -0,0 +1,228 @@
+package me.gaga.employeehubapi.service;
+
+import me.gaga.employeehubapi.dto.kudos.LeaderboardEntryDTO;
+import me.gaga.employeehubapi.entity.Role;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Order-statistic treap (subtree sizes on every node): top-K is O(log n + K) and a rank lookup is O(log n)
+class RankedBoard {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt(Entry::score).reversed()
+            .thenComparingLong(Entry::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private Node root;
+
+    RankedBoard() {
+    }
+
+    RankedBoard(Collection<Entry> initial) {
+        initial.forEach(this::insert);
+    }
+
+    // Replaces the user's score unless the board already holds a higher one (late, out-of-order snapshot)
+    void raise(Entry updated) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entries.get(updated.id());
+            if (current != null) {
+                if (current.score() > updated.score()) {
+                    return;
+                }
+                root = remove(root, current);
+            }
+            insert(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void increment(Entry delta) {
+        lock.writeLock().lock();
+        try {
+            Entry current = entries.get(delta.id());
+            int score = delta.score();
+            if (current != null) {
+                root = remove(root, current);
+                score += current.score();
+            }
+            insert(new Entry(delta.id(), score, delta.name(), delta.avatarUrl(), delta.role()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<LeaderboardEntryDTO> top(int limit) {
+        lock.readLock().lock();
+        try {
+            return slice(0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<LeaderboardEntryDTO> around(Long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                return List.of();
+            }
+            int from = Math.max(0, Math.min(rank(entry) - limit / 2, size(root) - limit));
+            return slice(from, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.id(), entry);
+        Node[] parts = split(root, entry);
+        root = merge(merge(parts[0], new Node(entry)), parts[1]);
+    }
+
+    private List<LeaderboardEntryDTO> slice(int from, int limit) {
+        List<LeaderboardEntryDTO> result = new ArrayList<>(Math.min(limit, size(root)));
+        collect(root, 0, from, limit, result);
+        return result;
+    }
+
+    // In-order walk over positions [from, from + limit); `offset` is the position of the subtree's first entry
+    private void collect(Node node, int offset, int from, int limit, List<LeaderboardEntryDTO> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int position = offset + size(node.left);
+        if (from < position) {
+            collect(node.left, offset, from, limit, out);
+        }
+        if (position >= from && out.size() < limit) {
+            out.add(toDto(node.entry, position + 1));
+        }
+        collect(node.right, position + 1, from, limit, out);
+    }
+
+    private int rank(Entry entry) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = ORDER.compare(entry, node.entry);
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left);
+                if (cmp == 0) {
+                    return rank;
+                }
+                rank++;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    // Splits into (< entry, >= entry)
+    private Node[] split(Node node, Entry entry) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (ORDER.compare(node.entry, entry) < 0) {
+            Node[] parts = split(node.right, entry);
+            node.right = parts[0];
+            node.resize();
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, entry);
+        node.left = parts[1];
+        node.resize();
+        return new Node[]{parts[0], node};
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.resize();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.resize();
+        return right;
+    }
+
+    private Node remove(Node node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(entry, node.entry);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, entry);
+        } else {
+            node.right = remove(node.right, entry);
+        }
+        node.resize();
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static LeaderboardEntryDTO toDto(Entry entry, int rank) {
+        return LeaderboardEntryDTO.builder()
+                .rank(rank)
+                .id(entry.id())
+                .name(entry.name())
+                .avatarUrl(entry.avatarUrl())
+                .role(entry.role())
+                .kudosReceived(entry.score())
+                .build();
+    }
+
+    record Entry(long id, int score, String name, String avatarUrl, Role role) {
+    }
+
+    private static final class Node {
+        private final Entry entry;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Entry entry) {
+            this.entry = entry;
+        }
+
+        private void resize() {
+            size = 1 + RankedBoard.size(left) + RankedBoard.size(right);
+        }
+    }
+}
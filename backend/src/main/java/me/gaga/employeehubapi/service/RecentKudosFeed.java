@@ -0,0 +1,81 @@
+package me.gaga.employeehubapi.service;
+
+import me.gaga.employeehubapi.dto.kudos.KudosDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Newest-first copy-on-write snapshot of the latest kudos: readers never lock, writers copy at most `capacity` references
+@Component
+public class RecentKudosFeed {
+
+    private static final Comparator<KudosDTO> NEWEST_FIRST = Comparator
+            .comparing(KudosDTO::getCreatedAt).reversed()
+            .thenComparing(KudosDTO::getId, Comparator.reverseOrder());
+
+    private final int capacity;
+    private volatile List<KudosDTO> entries = List.of();
+
+    public RecentKudosFeed(@Value("${kudos.feed.recent-capacity:500}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Returns null when the page reaches past the buffer and has to be read from the database
+    public List<KudosDTO> page(int page, int size) {
+        List<KudosDTO> snapshot = entries;
+        long from = (long) page * size;
+        if (page < 0 || size < 1 || from + size > snapshot.size()) {
+            return null;
+        }
+        return List.copyOf(snapshot.subList((int) from, (int) from + size));
+    }
+
+    // Oldest first, for replaying what an SSE client missed since its Last-Event-ID
+    public List<KudosDTO> after(long lastEventId) {
+        List<KudosDTO> missed = new ArrayList<>();
+        List<KudosDTO> snapshot = entries;
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            if (snapshot.get(i).getId() > lastEventId) {
+                missed.add(snapshot.get(i));
+            }
+        }
+        return missed;
+    }
+
+    public synchronized void add(KudosDTO kudos) {
+        List<KudosDTO> current = entries;
+        int index = 0;
+        while (index < current.size() && NEWEST_FIRST.compare(current.get(index), kudos) < 0) {
+            index++;
+        }
+        // Older than everything a full buffer holds, or already merged in by a refresh
+        if (index >= capacity || (index < current.size() && current.get(index).getId().equals(kudos.getId()))) {
+            return;
+        }
+
+        List<KudosDTO> next = new ArrayList<>(Math.min(capacity, current.size() + 1));
+        next.addAll(current.subList(0, index));
+        next.add(kudos);
+        next.addAll(current.subList(index, Math.min(current.size(), capacity - 1)));
+        entries = Collections.unmodifiableList(next);
+    }
+
+    // Loaded rows win over buffered ones, so user details picked up by a refresh replace send-time copies
+    public synchronized void merge(Collection<KudosDTO> loaded) {
+        Map<Long, KudosDTO> byId = new LinkedHashMap<>();
+        entries.forEach(kudos -> byId.put(kudos.getId(), kudos));
+        loaded.forEach(kudos -> byId.put(kudos.getId(), kudos));
+        entries = byId.values().stream().sorted(NEWEST_FIRST).limit(capacity).toList();
+    }
+}
@@ -0,0 +1,200 @@
+package me.gaga.employeehubapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.entity.RedemptionStatus;
+import me.gaga.employeehubapi.repository.RewardRedemptionRepository;
+import me.gaga.employeehubapi.repository.RewardRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Moves PENDING redemptions to FULFILLED, or to FAILED with the kudos and stock given back. Each round takes the
+// oldest pending ids and splits them into one batch per worker; a batch is one transaction. Another node draining
+// the same queue is harmless: every transition is guarded on the row still being PENDING.
+@Service
+@Slf4j
+public class RedemptionFulfilment {
+
+    private final RewardRedemptionRepository rewardRedemptionRepository;
+    private final RewardRepository rewardRepository;
+    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final RewardCatalog rewardCatalog;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int workers;
+    private final ExecutorService pool;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final Counter fulfilledCounter;
+    private final Counter failedCounter;
+
+    public RedemptionFulfilment(RewardRedemptionRepository rewardRedemptionRepository,
+                                RewardRepository rewardRepository,
+                                UserRepository userRepository,
+                                PrincipalCache principalCache,
+                                RewardCatalog rewardCatalog,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${rewards.fulfilment.batch-size:500}") int batchSize,
+                                @Value("${rewards.fulfilment.workers:4}") int workers) {
+        this.rewardRedemptionRepository = rewardRedemptionRepository;
+        this.rewardRepository = rewardRepository;
+        this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.rewardCatalog = rewardCatalog;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "reward-fulfilment-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.fulfilledCounter = meterRegistry.counter("rewards.fulfilment.fulfilled");
+        this.failedCounter = meterRegistry.counter("rewards.fulfilment.failed");
+        Gauge.builder("rewards.fulfilment.backlog", rewardRedemptionRepository,
+                        repository -> repository.countByStatus(RedemptionStatus.PENDING))
+                .register(meterRegistry);
+    }
+
+    // Redemptions used to be stored as COMPLETED straight away; they were handed out, so they count as FULFILLED.
+    // Runs while the context starts, before the web server accepts requests or the first poll is scheduled.
+    @PostConstruct
+    public void migrateCompleted() {
+        Integer migrated = transactionTemplate.execute(status -> rewardRedemptionRepository.fulfilCompleted());
+        if (migrated != null && migrated > 0) {
+            log.info("Marked {} COMPLETED reward redemption(s) as FULFILLED", migrated);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rewards.fulfilment.poll-interval-ms:2000}")
+    public void poll() {
+        int drained = drain();
+        if (drained > 0) {
+            log.debug("Processed {} pending reward redemption(s)", drained);
+        }
+    }
+
+    // Runs until the queue is empty; rounds never overlap, so no two local workers hold the same redemption.
+    // A lock rather than synchronized: the caller parks on the batches, and a virtual thread parked inside a monitor
+    // pins its carrier.
+    public int drain() {
+        drainLock.lock();
+        try {
+            return drainRounds();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private int drainRounds() {
+        int drained = 0;
+        List<Long> ids;
+        do {
+            ids = rewardRedemptionRepository.findIdsByStatus(RedemptionStatus.PENDING,
+                    PageRequest.ofSize(batchSize * workers));
+            List<Future<Integer>> batches = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                batches.add(pool.submit(() -> transactionTemplate.execute(status -> process(batch))));
+            }
+            for (Future<Integer> batch : batches) {
+                Integer processed = await(batch);
+                if (processed == null) {
+                    // A rolled back batch stays PENDING; leave it to the next poll rather than retrying it at once
+                    return drained;
+                }
+                drained += processed;
+            }
+        } while (ids.size() == batchSize * workers);
+        return drained;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private int process(List<Long> ids) {
+        List<Long> fulfilled = new ArrayList<>();
+        List<RewardRedemptionRepository.QueuedRedemption> failed = new ArrayList<>();
+        for (RewardRedemptionRepository.QueuedRedemption redemption
+                : rewardRedemptionRepository.findQueued(ids, RedemptionStatus.PENDING)) {
+            // A reward withdrawn after it was redeemed can no longer be handed out
+            if (Boolean.TRUE.equals(redemption.getRewardActive())) {
+                fulfilled.add(redemption.getId());
+            } else {
+                failed.add(redemption);
+            }
+        }
+
+        int fulfilledCount = fulfilled.isEmpty() ? 0
+                : rewardRedemptionRepository.transition(fulfilled, RedemptionStatus.PENDING, RedemptionStatus.FULFILLED);
+
+        // Only a redemption this worker actually moved to FAILED may give its kudos and stock back
+        Map<Long, Integer> refunds = new TreeMap<>();
+        Map<Long, Integer> returnedStock = new TreeMap<>();
+        int failedCount = 0;
+        for (RewardRedemptionRepository.QueuedRedemption redemption : failed) {
+            if (rewardRedemptionRepository.transition(List.of(redemption.getId()), RedemptionStatus.PENDING,
+                    RedemptionStatus.FAILED) == 0) {
+                continue;
+            }
+            failedCount++;
+            refunds.merge(redemption.getUserId(), redemption.getKudosCost(), Integer::sum);
+            if (redemption.getRewardStock() != null) {
+                returnedStock.merge(redemption.getRewardId(), 1, Integer::sum);
+            }
+        }
+        // In id order, users before rewards, so batches refunding the same users can't deadlock on each other
+        refunds.forEach(userRepository::refundKudosBalance);
+        returnedStock.forEach(rewardRepository::returnStock);
+
+        int failures = failedCount;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                fulfilledCounter.increment(fulfilledCount);
+                failedCounter.increment(failures);
+                refunds.keySet().forEach(principalCache::evict);
+                returnedStock.forEach(rewardCatalog::stockChanged);
+            }
+        });
+        return fulfilledCount + failedCount;
+    }
+
+    private static Integer await(Future<Integer> batch) {
+        try {
+            return batch.get();
+        } catch (ExecutionException e) {
+            log.warn("Reward fulfilment batch failed: {}", e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
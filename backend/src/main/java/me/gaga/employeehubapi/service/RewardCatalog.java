@@ -0,0 +1,217 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.dto.reward.RewardDTO;
+import me.gaga.employeehubapi.entity.Reward;
+import me.gaga.employeehubapi.repository.RewardRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The active rewards, sorted by kudosCost and already serialized, so listing the catalog never queries or serializes.
+// Stock is the one field redeems change, so it stays out of the serialized bytes: each page writes the current count
+// between them, and redeems and fulfilment returns adjust it in place instead of forcing a rebuild. Rewards edited in
+// the database directly, and a stock change that races a reload, show up after the next periodic reload.
+@Component
+@Slf4j
+public class RewardCatalog {
+
+    public record Page(byte[] json, String etag) {
+    }
+
+    // heads[i] is reward i serialized up to its stock value and tails[i] the rest; limited[i] is false for rewards
+    // without a stock, which are written as null
+    private record Snapshot(int[] costs, byte[][] heads, byte[][] tails, boolean[] limited, AtomicIntegerArray stock,
+                            Map<Long, Integer> positions, String version) {
+    }
+
+    private static final int STOCK_MARKER = Integer.MIN_VALUE;
+    private static final byte[] STOCK_FIELD = ("\"stock\":" + STOCK_MARKER).getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final RewardRepository rewardRepository;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public RewardCatalog(RewardRepository rewardRepository, ObjectMapper objectMapper) {
+        this.rewardRepository = rewardRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Rewards costing at most maxCost, or the whole catalog when it is null
+    public Page list(Integer maxCost) {
+        Snapshot current = current();
+        int count = maxCost == null ? current.costs().length : upperBound(current.costs(), maxCost);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        long stockHash = count;
+        json.write('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            json.writeBytes(current.heads()[i]);
+            if (current.limited()[i]) {
+                int stock = current.stock().get(i);
+                json.writeBytes(Integer.toString(stock).getBytes(StandardCharsets.US_ASCII));
+                stockHash = stockHash * 31 + stock;
+            } else {
+                json.writeBytes(NULL);
+            }
+            json.writeBytes(current.tails()[i]);
+        }
+        json.write(']');
+        return new Page(json.toByteArray(), "\"" + current.version() + "-" + Long.toHexString(stockHash) + "\"");
+    }
+
+    // Called after the change committed; delta is negative for a redeem and positive for returned stock
+    public void stockChanged(Long rewardId, int delta) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // The next read loads it from the database
+            return;
+        }
+        Integer position = current.positions().get(rewardId);
+        if (position != null && current.limited()[position]) {
+            current.stock().addAndGet(position, delta);
+        }
+    }
+
+    // Readers keep the old snapshot until the new one is swapped in
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${rewards.catalog.refresh-interval-ms:60000}",
+            fixedDelayString = "${rewards.catalog.refresh-interval-ms:60000}")
+    public void reload() {
+        loadLock.lock();
+        try {
+            snapshot = load();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // A lock rather than synchronized: the load is a query, and a virtual thread blocked inside a monitor pins its carrier
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            current = load();
+            snapshot = current;
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private Snapshot load() {
+        Snapshot loaded = build(rewardRepository.findByIsActiveTrueOrderByKudosCostAscIdAsc());
+        log.debug("Loaded {} rewards into the catalog, version {}", loaded.costs().length, loaded.version());
+        return loaded;
+    }
+
+    private Snapshot build(List<Reward> rewards) {
+        int count = rewards.size();
+        int[] costs = new int[count];
+        byte[][] heads = new byte[count][];
+        byte[][] tails = new byte[count][];
+        boolean[] limited = new boolean[count];
+        AtomicIntegerArray stock = new AtomicIntegerArray(count);
+        Map<Long, Integer> positions = new HashMap<>();
+        MessageDigest digest = sha256();
+        for (int i = 0; i < count; i++) {
+            Reward reward = rewards.get(i);
+            RewardDTO dto = toDto(reward);
+            dto.setStock(STOCK_MARKER);
+            byte[] json = write(dto);
+            int field = indexOf(json, STOCK_FIELD);
+            int value = field + STOCK_FIELD.length - Integer.toString(STOCK_MARKER).length();
+            heads[i] = Arrays.copyOf(json, value);
+            tails[i] = Arrays.copyOfRange(json, field + STOCK_FIELD.length, json.length);
+            costs[i] = reward.getKudosCost();
+            limited[i] = reward.getStock() != null;
+            stock.set(i, limited[i] ? reward.getStock() : 0);
+            positions.put(reward.getId(), i);
+            digest.update(heads[i]);
+            digest.update(tails[i]);
+        }
+        return new Snapshot(costs, heads, tails, limited, stock, positions, HexFormat.of().formatHex(digest.digest(), 0, 16));
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        outer:
+        for (int i = 0; i <= bytes.length - part.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (bytes[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalStateException("Serialized reward has no stock field");
+    }
+
+    // Number of rewards costing at most maxCost
+    private static int upperBound(int[] costs, int maxCost) {
+        int low = 0;
+        int high = costs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (costs[mid] <= maxCost) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private byte[] write(RewardDTO reward) {
+        try {
+            return objectMapper.writeValueAsBytes(reward);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Reward " + reward.getId() + " could not be serialized", e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static RewardDTO toDto(Reward reward) {
+        return RewardDTO.builder()
+                .id(reward.getId())
+                .name(reward.getName())
+                .description(reward.getDescription())
+                .kudosCost(reward.getKudosCost())
+                .imageUrl(reward.getImageUrl())
+                .isActive(reward.getIsActive())
+                .stock(reward.getStock())
+                .build();
+    }
+}
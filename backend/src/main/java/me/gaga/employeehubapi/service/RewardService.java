@@ -1,79 +1,182 @@
 package me.gaga.employeehubapi.service;
 
 import lombok.RequiredArgsConstructor;
-import me.gaga.employeehubapi.dto.reward.RewardDTO;
+import lombok.extern.slf4j.Slf4j;
 import me.gaga.employeehubapi.dto.reward.RewardRedemptionDTO;
+import me.gaga.employeehubapi.entity.RedemptionStatus;
 import me.gaga.employeehubapi.entity.Reward;
 import me.gaga.employeehubapi.entity.RewardRedemption;
-import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.entity.Role;
 import me.gaga.employeehubapi.exception.BadRequestException;
+import me.gaga.employeehubapi.exception.ConflictException;
 import me.gaga.employeehubapi.exception.ResourceNotFoundException;
+import me.gaga.employeehubapi.exception.UnauthorizedException;
 import me.gaga.employeehubapi.repository.RewardRedemptionRepository;
 import me.gaga.employeehubapi.repository.RewardRepository;
 import me.gaga.employeehubapi.repository.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import me.gaga.employeehubapi.security.CurrentUser;
+import me.gaga.employeehubapi.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class RewardService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    // Newer than any redemption, so a first page needs no separate query
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final RewardRepository rewardRepository;
     private final RewardRedemptionRepository rewardRedemptionRepository;
     private final UserRepository userRepository;
+    private final CurrentUser currentUser;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate transactionTemplate;
+    private final RewardCatalog rewardCatalog;
+    private final UserDtoMapper userDtoMapper;
+
+    @Value("${rewards.redeem.max-attempts:5}")
+    private int redeemMaxAttempts;
+
+    @Value("${rewards.redeem.backoff-ms:20}")
+    private long redeemBackoffMs;
+
+    // Newest first. Without userId this is the caller's own history; admins may name any user, or pass only a
+    // status to see that part of the fulfilment queue across all users
+    public List<RewardRedemptionDTO> listRedemptions(Long userId, String status, String before, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Long self = currentUser.id();
+        boolean admin = currentUser.role() == Role.ADMIN;
+        if (userId != null && !userId.equals(self) && !admin) {
+            throw new UnauthorizedException("You can only view your own redemptions");
+        }
+        RedemptionStatus wanted = parseStatus(status);
+
+        LocalDateTime redeemedAt = LATEST;
+        Long id = Long.MAX_VALUE;
+        if (before != null) {
+            int separator = before.lastIndexOf(',');
+            try {
+                redeemedAt = LocalDateTime.parse(before.substring(0, separator));
+                id = Long.parseLong(before.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor must be formatted as <redeemedAt>,<id>", e);
+            }
+        }
 
-    public List<RewardDTO> listRewards() {
-        return rewardRepository.findByIsActiveTrue().stream().map(this::toDto).collect(Collectors.toList());
+        PageRequest page = PageRequest.ofSize(limit);
+        Slice<RewardRedemption> slice;
+        if (admin && userId == null && wanted != null) {
+            slice = rewardRedemptionRepository.findByStatusBefore(wanted, redeemedAt, id, page);
+        } else {
+            Long owner = userId != null ? userId : self;
+            slice = wanted == null
+                    ? rewardRedemptionRepository.findByUserBefore(owner, redeemedAt, id, page)
+                    : rewardRedemptionRepository.findByUserAndStatusBefore(owner, wanted, redeemedAt, id, page);
+        }
+        UserDtoMapper.Scope users = userDtoMapper.scope();
+        return slice.getContent().stream().map(rr -> toDto(rr, users)).toList();
     }
 
     public RewardRedemptionDTO redeem(Long rewardId) {
-        User user = getCurrentUser();
+        Long userId = currentUser.id();
         Reward reward = rewardRepository.findById(rewardId)
                 .orElseThrow(() -> new ResourceNotFoundException("Reward", "id", rewardId));
+        if (!Boolean.TRUE.equals(reward.getIsActive())) {
+            throw new BadRequestException("This reward is no longer available");
+        }
+        // Once a drop sells out, later buyers are turned away without queueing on the reward row lock
+        if (reward.getStock() != null && reward.getStock() <= 0) {
+            throw new ConflictException("This reward is out of stock");
+        }
 
-        if (user.getKudosBalance() < reward.getKudosCost()) {
-            throw new BadRequestException("Not enough kudos to redeem this reward");
+        PessimisticLockingFailureException lastFailure = null;
+        for (int attempt = 1; attempt <= redeemMaxAttempts; attempt++) {
+            try {
+                RewardRedemption redemption = transactionTemplate.execute(status -> purchase(userId, reward));
+                principalCache.evict(userId);
+                if (reward.getStock() != null) {
+                    rewardCatalog.stockChanged(rewardId, -1);
+                }
+                return toDto(redemption);
+            } catch (PessimisticLockingFailureException e) {
+                lastFailure = e;
+                log.debug("Redeem attempt {} of reward {} by user {} failed: {}", attempt, rewardId, userId, e.getMessage());
+                backoff(attempt);
+            }
         }
+        throw new ConflictException("Reward could not be redeemed, please retry", lastFailure);
+    }
 
-        user.setKudosBalance(user.getKudosBalance() - reward.getKudosCost());
-        userRepository.save(user);
+    // Balance and stock are both conditional UPDATEs in one transaction, so neither can be overspent and a failure
+    // on either rolls back the other. The contended reward row is locked last to keep its lock hold short.
+    private RewardRedemption purchase(Long userId, Reward reward) {
+        if (userRepository.spendKudosBalance(userId, reward.getKudosCost()) == 0) {
+            throw new BadRequestException("Not enough kudos to redeem this reward");
+        }
+        if (reward.getStock() != null && rewardRepository.takeStock(reward.getId()) == 0) {
+            throw new ConflictException("This reward is out of stock");
+        }
 
-        RewardRedemption redemption = RewardRedemption.builder()
-                .user(user)
+        return rewardRedemptionRepository.save(RewardRedemption.builder()
+                .user(userRepository.getReferenceById(userId))
                 .reward(reward)
                 .kudosCost(reward.getKudosCost())
-                .status("COMPLETED")
-                .build();
+                .status(RedemptionStatus.PENDING)
+                .build());
+    }
 
-        return toDto(rewardRedemptionRepository.save(redemption));
+    private static RedemptionStatus parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return RedemptionStatus.valueOf(status.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Status must be one of PENDING, FULFILLED, FAILED");
+        }
     }
 
-    private RewardDTO toDto(Reward reward) {
-        return RewardDTO.builder()
-                .id(reward.getId())
-                .name(reward.getName())
-                .description(reward.getDescription())
-                .kudosCost(reward.getKudosCost())
-                .imageUrl(reward.getImageUrl())
-                .build();
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, redeemBackoffMs * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Reward redemption was interrupted", e);
+        }
     }
 
     private RewardRedemptionDTO toDto(RewardRedemption rr) {
         return RewardRedemptionDTO.builder()
                 .id(rr.getId()) //.rewardId(rr.getReward().getId())
                 .kudosCost(rr.getKudosCost())
-                .status(rr.getStatus())
+                .status(rr.getStatus().name())
                 .redeemedAt(rr.getRedeemedAt())
                 .build();
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (User) authentication.getPrincipal();
+    private RewardRedemptionDTO toDto(RewardRedemption rr, UserDtoMapper.Scope users) {
+        return RewardRedemptionDTO.builder()
+                .id(rr.getId())
+                .user(users.of(rr.getUser()))
+                .reward(RewardCatalog.toDto(rr.getReward()))
+                .kudosCost(rr.getKudosCost())
+                .status(rr.getStatus().name())
+                .redeemedAt(rr.getRedeemedAt())
+                .build();
     }
 }
 
@@ -0,0 +1,63 @@
+package me.gaga.employeehubapi.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "kudos.streak.backfill-on-startup", havingValue = "true")
+public class StreakBackfillService implements ApplicationRunner {
+
+    private final KudosRepository kudosRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        log.info("Backfilled streak state for {} sender(s)", backfill());
+    }
+
+    // Single pass over kudos ordered by (sender, createdAt): only the current sender's state is held in memory
+    @Transactional
+    public int backfill() {
+        int senders = 0;
+        try (Stream<KudosRepository.SenderActivity> activity = kudosRepository.streamSenderActivity()) {
+            Long senderId = null;
+            LocalDate lastDay = null;
+            int streak = 0;
+
+            Iterator<KudosRepository.SenderActivity> it = activity.iterator();
+            while (it.hasNext()) {
+                KudosRepository.SenderActivity row = it.next();
+                LocalDate day = row.getCreatedAt().toLocalDate();
+                if (!row.getSenderId().equals(senderId)) {
+                    if (senderId != null) {
+                        userRepository.updateStreakState(senderId, lastDay, streak);
+                        senders++;
+                    }
+                    senderId = row.getSenderId();
+                    lastDay = null;
+                }
+                streak = day.equals(lastDay) ? streak + 1 : 1;
+                lastDay = day;
+            }
+            if (senderId != null) {
+                userRepository.updateStreakState(senderId, lastDay, streak);
+                senders++;
+            }
+        }
+        return senders;
+    }
+}
@@ -1,14 +1,23 @@
 package me.gaga.employeehubapi.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.entity.KudosOutbox;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,36 +27,122 @@ public class TeamsWebhookService {
     @Value("${teams.webhook.url}")
     private String webhookUrl;
 
+    @Value("${teams.webhook.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${teams.webhook.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+
+    @Value("${teams.webhook.max-backoff-ms:10000}")
+    private long maxBackoffMs;
+
     private final RestTemplate restTemplate;
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
 
-    public TeamsWebhookService() {
-        this.restTemplate = new RestTemplate();
+    public TeamsWebhookService(RestTemplateBuilder restTemplateBuilder,
+                               MeterRegistry meterRegistry,
+                               @Value("${teams.webhook.connect-timeout-ms:2000}") long connectTimeoutMs,
+                               @Value("${teams.webhook.read-timeout-ms:5000}") long readTimeoutMs) {
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
+        this.deliveredCounter = meterRegistry.counter("teams.notifications.delivered");
+        this.failedCounter = meterRegistry.counter("teams.notifications.failed");
     }
 
-    public void sendKudosNotification(String senderName, String receiverName, int amount, String message) {
+    public boolean sendKudosNotifications(List<KudosOutbox> batch) {
         if (webhookUrl == null || webhookUrl.isEmpty()) {
-            log.warn("Teams webhook URL is not configured. Skipping notification.");
-            return;
+            log.debug("Teams webhook URL is not configured. Skipping {} notification(s).", batch.size());
+            return true;
         }
 
-        try {
-            String messageText = String.format("🎉 **Kudos Alert!** 🎉\n\n" +
+        if (deliver(buildMessageText(batch))) {
+            deliveredCounter.increment(batch.size());
+            log.info("Successfully sent {} kudos notification(s) to Teams channel", batch.size());
+            return true;
+        }
+        failedCounter.increment(batch.size());
+        return false;
+    }
+
+    private String buildMessageText(List<KudosOutbox> batch) {
+        if (batch.size() == 1) {
+            KudosOutbox n = batch.get(0);
+            return String.format("🎉 **Kudos Alert!** 🎉\n\n" +
                     "**%s** sent **%d kudos** to **%s**\n\n" +
-                    "Message: \"%s\"", 
-                    senderName, amount, receiverName, message);
+                    "Message: \"%s\"",
+                    n.getSenderName(), n.getAmount(), n.getReceiverName(), n.getMessage());
+        }
+
+        StringBuilder text = new StringBuilder(String.format("🎉 **Kudos Digest: %d new kudos** 🎉\n\n", batch.size()));
+        for (KudosOutbox n : batch) {
+            text.append(String.format("- **%s** sent **%d kudos** to **%s**: \"%s\"\n",
+                    n.getSenderName(), n.getAmount(), n.getReceiverName(), n.getMessage()));
+        }
+        return text.toString();
+    }
 
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("text", messageText);
+    private boolean deliver(String messageText) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("text", messageText);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
 
-            restTemplate.postForEntity(webhookUrl, request, String.class);
-            log.info("Successfully sent kudos notification to Teams channel");
-        } catch (Exception e) {
-            log.error("Failed to send notification to Teams webhook: {}", e.getMessage(), e);
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                restTemplate.postForEntity(webhookUrl, request, String.class);
+                return true;
+            } catch (HttpStatusCodeException e) {
+                if (!isRetryable(e.getStatusCode()) || attempt == maxAttempts) {
+                    log.error("Failed to send notification to Teams webhook: {}", e.getMessage(), e);
+                    return false;
+                }
+                long retryAfterMs = retryAfterMs(e.getResponseHeaders());
+                log.warn("Teams webhook returned {} (attempt {}/{}), retrying", e.getStatusCode(), attempt, maxAttempts);
+                sleep(Math.max(backoffMs, retryAfterMs));
+            } catch (ResourceAccessException e) {
+                if (attempt == maxAttempts) {
+                    log.error("Failed to send notification to Teams webhook: {}", e.getMessage(), e);
+                    return false;
+                }
+                log.warn("Teams webhook unreachable (attempt {}/{}), retrying: {}", attempt, maxAttempts, e.getMessage());
+                sleep(backoffMs);
+            } catch (Exception e) {
+                log.error("Failed to send notification to Teams webhook: {}", e.getMessage(), e);
+                return false;
+            }
+            backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        }
+        return false;
+    }
+
+    private boolean isRetryable(HttpStatusCode status) {
+        return status.value() == 429 || status.is5xxServerError();
+    }
+
+    private long retryAfterMs(HttpHeaders headers) {
+        String retryAfter = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return Math.min(Long.parseLong(retryAfter.trim()) * 1000, maxBackoffMs);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
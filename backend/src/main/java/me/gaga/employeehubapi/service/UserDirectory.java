@@ -0,0 +1,185 @@
+package me.gaga.employeehubapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.gaga.employeehubapi.dto.user.UserSummaryDTO;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Every user's directory card, in name order and under each lowercased search key: the full name, every later
+// part of the name ("doe" for "Jane Doe") and the email. A typeahead lookup is one seek into the sorted keys plus
+// a short scan. Register and role changes update it in place; other nodes' changes arrive with the periodic reload.
+@Component
+@Slf4j
+public class UserDirectory {
+
+    private record Entry(Long id, String name, String email, String avatarUrl, Role role) {
+    }
+
+    private static final class Index {
+        final Map<Long, Entry> byId;
+        final NavigableMap<String, Entry> byName;
+        final NavigableMap<String, Entry> byKey;
+
+        // Sorted up front, so the skip lists are built in one linear pass instead of one insert per key
+        Index(List<Entry> entries) {
+            Map<Long, Entry> byId = new HashMap<>(entries.size() * 4 / 3 + 1);
+            TreeMap<String, Entry> byName = new TreeMap<>();
+            TreeMap<String, Entry> byKey = new TreeMap<>();
+            for (Entry entry : entries) {
+                byId.put(entry.id(), entry);
+                byName.put(nameKey(entry), entry);
+                searchKeys(entry).forEach(key -> byKey.put(key, entry));
+            }
+            this.byId = new ConcurrentHashMap<>(byId);
+            this.byName = new ConcurrentSkipListMap<>(byName);
+            this.byKey = new ConcurrentSkipListMap<>(byKey);
+        }
+
+        synchronized void put(Entry entry) {
+            Entry previous = byId.put(entry.id(), entry);
+            if (previous != null) {
+                byName.remove(nameKey(previous));
+                searchKeys(previous).forEach(byKey::remove);
+            }
+            byName.put(nameKey(entry), entry);
+            searchKeys(entry).forEach(key -> byKey.put(key, entry));
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Index index = new Index(List.of());
+    // Guarded by this; the updates made while a reload streams, replayed onto the loaded index before it is swapped in
+    private Map<Long, Entry> updatedDuringReload;
+
+    public UserDirectory(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${users.directory.refresh-interval-ms:300000}",
+            fixedDelayString = "${users.directory.refresh-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void reload() {
+        reloadLock.lock();
+        try {
+            synchronized (this) {
+                updatedDuringReload = new LinkedHashMap<>();
+            }
+            List<Entry> entries = new ArrayList<>();
+            try (Stream<UserRepository.DirectoryRow> rows = userRepository.streamDirectoryRows()) {
+                rows.forEach(row -> entries.add(new Entry(row.getId(), row.getName(), row.getEmail(),
+                        row.getAvatarUrl(), row.getRole())));
+            }
+            Index loaded = new Index(entries);
+            synchronized (this) {
+                // An entry is the user's whole card, so replaying it is right whether the stream saw the change or not
+                updatedDuringReload.values().forEach(loaded::put);
+                index = loaded;
+            }
+            log.debug("Loaded {} users into the directory", loaded.byId.size());
+        } finally {
+            synchronized (this) {
+                updatedDuringReload = null;
+            }
+            reloadLock.unlock();
+        }
+    }
+
+    public synchronized void update(User user) {
+        Entry entry = new Entry(user.getId(), user.getName(), user.getEmail(), user.getAvatarUrl(), user.getRole());
+        if (updatedDuringReload != null) {
+            updatedDuringReload.remove(entry.id());
+            updatedDuringReload.put(entry.id(), entry);
+        }
+        index.put(entry);
+    }
+
+    public boolean contains(Long userId) {
+        return index.byId.containsKey(userId);
+    }
+
+    // Name order, starting after the given user
+    public List<UserSummaryDTO> page(Long afterUserId, int limit) {
+        Index current = index;
+        Entry after = afterUserId == null ? null : current.byId.get(afterUserId);
+        NavigableMap<String, Entry> rest = after == null ? current.byName : current.byName.tailMap(nameKey(after), false);
+        List<UserSummaryDTO> page = new ArrayList<>(limit);
+        for (Entry entry : rest.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(toDto(entry));
+        }
+        return page;
+    }
+
+    // Users with a name part or email starting with the query, best key first, each user once
+    public List<UserSummaryDTO> search(String query, int limit) {
+        String prefix = normalize(query);
+        Map<Long, Entry> matches = new LinkedHashMap<>();
+        for (Entry entry : index.byKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (matches.size() == limit) {
+                break;
+            }
+            matches.putIfAbsent(entry.id(), entry);
+        }
+        return matches.values().stream().map(UserDirectory::toDto).toList();
+    }
+
+    public int size() {
+        return index.byId.size();
+    }
+
+    private static String nameKey(Entry entry) {
+        return normalize(entry.name()) + '\0' + entry.id();
+    }
+
+    private static List<String> searchKeys(Entry entry) {
+        List<String> keys = new ArrayList<>(3);
+        String name = normalize(entry.name());
+        keys.add(name + '\0' + entry.id());
+        for (int i = 1; i < name.length(); i++) {
+            if (name.charAt(i - 1) == ' ' && name.charAt(i) != ' ') {
+                keys.add(name.substring(i) + '\0' + entry.id());
+            }
+        }
+        if (entry.email() != null) {
+            keys.add(normalize(entry.email()) + '\0' + entry.id());
+        }
+        return keys;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static UserSummaryDTO toDto(Entry entry) {
+        return UserSummaryDTO.builder()
+                .id(entry.id())
+                .name(entry.name())
+                .email(entry.email())
+                .role(entry.role())
+                .avatarUrl(entry.avatarUrl())
+                .build();
+    }
+}
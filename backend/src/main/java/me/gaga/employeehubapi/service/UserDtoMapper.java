@@ -0,0 +1,80 @@
+package me.gaga.employeehubapi.service;
+
+import me.gaga.employeehubapi.dto.auth.AuthResponse;
+import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The one place a User becomes a UserDTO. A Scope hands out one shared instance per user id, so a feed page where the
+// same people recur maps each of them once.
+@Component
+public class UserDtoMapper {
+
+    public UserDTO toDto(User user) {
+        return userDto(user.getId(), user.getName(), user.getEmail(), user.getRole(), user.getAvatarUrl(),
+                user.getKudosBalance(), user.getKudosReceived(), user.getStreakCount());
+    }
+
+    public AuthResponse toAuthResponse(User user, String token, String refreshToken) {
+        return AuthResponse.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .token(token)
+                .refreshToken(refreshToken)
+                .avatarUrl(user.getAvatarUrl())
+                .kudosBalance(user.getKudosBalance())
+                .kudosReceived(user.getKudosReceived())
+                .streakCount(user.getStreakCount())
+                .build();
+    }
+
+    // Open one per response; it is not thread-safe and must not outlive the data it was filled from
+    public Scope scope() {
+        return new Scope();
+    }
+
+    public final class Scope {
+
+        private final Map<Long, UserDTO> users = new HashMap<>();
+
+        private Scope() {
+        }
+
+        public UserDTO of(User user) {
+            return users.computeIfAbsent(user.getId(), id -> toDto(user));
+        }
+
+        public UserDTO senderOf(KudosRepository.FeedRow row) {
+            return users.computeIfAbsent(row.getSenderId(), id -> userDto(id, row.getSenderName(), row.getSenderEmail(),
+                    row.getSenderRole(), row.getSenderAvatarUrl(), row.getSenderKudosBalance(),
+                    row.getSenderKudosReceived(), row.getSenderStreakCount()));
+        }
+
+        public UserDTO receiverOf(KudosRepository.FeedRow row) {
+            return users.computeIfAbsent(row.getReceiverId(), id -> userDto(id, row.getReceiverName(), row.getReceiverEmail(),
+                    row.getReceiverRole(), row.getReceiverAvatarUrl(), row.getReceiverKudosBalance(),
+                    row.getReceiverKudosReceived(), row.getReceiverStreakCount()));
+        }
+    }
+
+    private static UserDTO userDto(Long id, String name, String email, Role role, String avatarUrl,
+                                   Integer kudosBalance, Integer kudosReceived, Integer streakCount) {
+        return UserDTO.builder()
+                .id(id)
+                .name(name)
+                .email(email)
+                .role(role)
+                .avatarUrl(avatarUrl)
+                .kudosBalance(kudosBalance)
+                .kudosReceived(kudosReceived)
+                .streakCount(streakCount)
+                .build();
+    }
+}
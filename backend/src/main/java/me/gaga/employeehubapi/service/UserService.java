@@ -3,13 +3,15 @@ package me.gaga.employeehubapi.service;
 import lombok.RequiredArgsConstructor;
 import me.gaga.employeehubapi.dto.user.UpdateRoleRequest;
 import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.dto.user.UserSummaryDTO;
 import me.gaga.employeehubapi.entity.Role;
 import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.exception.BadRequestException;
 import me.gaga.employeehubapi.exception.ResourceNotFoundException;
 import me.gaga.employeehubapi.exception.UnauthorizedException;
 import me.gaga.employeehubapi.repository.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import me.gaga.employeehubapi.security.CurrentUser;
+import me.gaga.employeehubapi.security.PrincipalCache;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,24 +21,47 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
+    private final KudosLeaderboard kudosLeaderboard;
+    private final CurrentUser currentUser;
+    private final PrincipalCache principalCache;
+    private final UserDtoMapper userDtoMapper;
+    private final UserDirectory userDirectory;
 
     public List<UserDTO> getAllUsers() {
         return userRepository.findAll().stream()
-                .map(this::mapToUserDTO)
+                .map(userDtoMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    // Directory cards in name order, or the best typeahead matches for q; served from memory either way
+    public List<UserSummaryDTO> listUsers(String query, Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (query != null && !query.isBlank()) {
+            if (after != null) {
+                throw new BadRequestException("Search results are not paged; drop 'after' or 'q'");
+            }
+            return userDirectory.search(query, limit);
+        }
+        if (after != null && !userDirectory.contains(after)) {
+            throw new BadRequestException("Unknown cursor: user " + after);
+        }
+        return userDirectory.page(after, limit);
+    }
+
     public UserDTO getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
-        return mapToUserDTO(user);
+        return userDtoMapper.toDto(user);
     }
 
     public UserDTO updateUserRole(Long userId, UpdateRoleRequest request) {
         // Check if the current user is an ADMIN
-        User currentUser = getCurrentUser();
-        if (currentUser.getRole() != Role.ADMIN) {
+        if (currentUser.role() != Role.ADMIN) {
             throw new UnauthorizedException("Only ADMIN users can update roles");
         }
 
@@ -45,25 +70,10 @@ public class UserService {
 
         user.setRole(request.getRole());
         User updatedUser = userRepository.save(user);
+        kudosLeaderboard.update(updatedUser);
+        userDirectory.update(updatedUser);
+        principalCache.roleChanged(userId);
 
-        return mapToUserDTO(updatedUser);
-    }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (User) authentication.getPrincipal();
-    }
-
-    private UserDTO mapToUserDTO(User user) {
-        return UserDTO.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .avatarUrl(user.getAvatarUrl())
-                .kudosBalance(user.getKudosBalance())
-                .kudosReceived(user.getKudosReceived())
-                .streakCount(user.getStreakCount())
-                .build();
+        return userDtoMapper.toDto(updatedUser);
     }
 }
@@ -0,0 +1,89 @@
+package me.gaga.employeehubapi;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Runs in its own JVM so client and server sockets don't share one process's file descriptor limit.
+// Usage: LoadClient <url> <bearer token> <clients> <requests per client> <ramp ms> <result file>
+// Writes: <ok> <errors> <elapsed ms> <p50 ms> <p99 ms>, then the first failure on a second line if there was one
+public final class LoadClient {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        String token = args[1];
+        int clients = Integer.parseInt(args[2]);
+        int requestsPerClient = Integer.parseInt(args[3]);
+        long rampNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(args[4]));
+        Path result = Path.of(args[5]);
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(60))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofMinutes(2))
+                .GET()
+                .build();
+
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicReference<String> firstFailure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        long begin;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                long delayNanos = rampNanos * i / clients;
+                executor.submit(() -> {
+                    start.await();
+                    Thread.sleep(Duration.ofNanos(delayNanos));
+                    for (int j = 0; j < requestsPerClient; j++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latencies[ok.getAndIncrement()] = System.nanoTime() - sent;
+                            } else {
+                                errors.incrementAndGet();
+                                firstFailure.compareAndSet(null, "HTTP " + response.statusCode());
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                            firstFailure.compareAndSet(null, e.toString());
+                        }
+                    }
+                    return null;
+                });
+            }
+            begin = System.nanoTime();
+            start.countDown();
+        }
+        long elapsedMs = (System.nanoTime() - begin) / 1_000_000;
+
+        long[] measured = Arrays.copyOf(latencies, ok.get());
+        Arrays.sort(measured);
+        Files.writeString(result, String.format(Locale.ROOT, "%d %d %d %.1f %.1f", ok.get(), errors.get(), elapsedMs,
+                percentile(measured, 50), percentile(measured, 99))
+                + (firstFailure.get() == null ? "" : "\n" + firstFailure.get()));
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,32 @@
+package me.gaga.employeehubapi;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hibernate's statement inspector in the test profile: collects the SQL that a block runs on the calling thread
+public class RecordedStatements implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> recording = new ThreadLocal<>();
+
+    public static List<String> during(Runnable block) {
+        List<String> statements = new ArrayList<>();
+        recording.set(statements);
+        try {
+            block.run();
+        } finally {
+            recording.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = recording.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,183 @@
+package me.gaga.employeehubapi;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import me.gaga.employeehubapi.config.ConcurrencyLimitedDataSource;
+import me.gaga.employeehubapi.config.PinnedThreadMonitor;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.JwtTokenUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Starts the real server (Tomcat, security chain, Hikari) once per threading mode and drives it from a separate JVM.
+// The endpoint waits SIMULATED_IO_MS, standing in for a webhook or remote call, then runs one query. The wait is long
+// enough that 200 Tomcat threads, not the CPU, are the bottleneck in platform mode. Takes minutes: run it with
+// mvn test -Pbenchmark.
+@Tag("benchmark")
+class VirtualThreadLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int[] CLIENTS = {200, 2_000, 10_000};
+    private static final long SIMULATED_IO_MS = 1_000;
+    // Clients connect over this long rather than all in one instant, which would overflow the listen backlog
+    private static final long RAMP_MS = 2_000;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        List<String> report = new ArrayList<>();
+        double[] busiestRps = new double[2];
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext app = start(virtual)) {
+                String url = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/load/io";
+                String token = token(app);
+                assertThat(app.getBean(DataSource.class) instanceof ConcurrencyLimitedDataSource).isEqualTo(virtual);
+                runClient(url, token, 200, 2);
+
+                for (int wanted : CLIENTS) {
+                    int clients = Math.min(wanted, maxClients());
+                    threads.resetPeakThreadCount();
+                    String[] output = runClient(url, token, clients, Math.max(1, 1_000 / clients));
+                    String[] result = output[0].trim().split(" ");
+                    String firstFailure = output.length > 1 ? output[1] : "";
+                    long ok = Long.parseLong(result[0]);
+                    long errors = Long.parseLong(result[1]);
+                    long elapsedMs = Long.parseLong(result[2]);
+                    busiestRps[virtual ? 1 : 0] = ok * 1000.0 / elapsedMs;
+                    report.add(String.format("%-8s %6d clients: %6.0f req/s, p50 %7s ms, p99 %7s ms, %d errors, peak %d platform threads",
+                            virtual ? "virtual" : "platform", clients, busiestRps[virtual ? 1 : 0],
+                            result[3], result[4], errors, threads.getPeakThreadCount()));
+                    if (virtual) {
+                        assertThat(errors).as(firstFailure).isZero();
+                    }
+                }
+
+                if (virtual) {
+                    assertPinningIsReported(app.getBean(PinnedThreadMonitor.class));
+                }
+            }
+        }
+        log.info("virtual thread load test ({} ms simulated I/O per request, {} cpus):\n  {}",
+                SIMULATED_IO_MS, Runtime.getRuntime().availableProcessors(), String.join("\n  ", report));
+        assertThat(busiestRps[1]).isGreaterThan(busiestRps[0]);
+    }
+
+    // Each client holds a socket in the server and in the client JVM; leave headroom for jars, the database and logs
+    private static int maxClients() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean unix) {
+            return (int) Math.max(200, unix.getMaxFileDescriptorCount() - 2_000);
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private void assertPinningIsReported(PinnedThreadMonitor monitor) throws Exception {
+        double before = monitor.pinnedCount();
+        Object lock = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                sleep(100);
+            }
+        }).join();
+
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (monitor.pinnedCount() <= before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(monitor.pinnedCount()).isGreaterThan(before);
+    }
+
+    private ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(EmployeeHubApiApplication.class)
+                .initializers(context -> ((GenericApplicationContext) context).registerBean("loadRoute", RouterFunction.class,
+                        () -> RouterFunctions.route()
+                                .GET("/load/io", request -> {
+                                    Thread.sleep(SIMULATED_IO_MS);
+                                    return ServerResponse.ok().body(context.getBean(UserRepository.class).count());
+                                })
+                                .build()))
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "server.tomcat.max-connections=12000",
+                        "server.tomcat.accept-count=10000",
+                        "logging.level.org.springframework.security=WARN")
+                .run();
+    }
+
+    private String token(ConfigurableApplicationContext app) {
+        User user = app.getBean(UserRepository.class).save(User.builder()
+                .name("Load User")
+                .email("load-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+        return app.getBean(JwtTokenUtil.class).generateToken(user);
+    }
+
+    private String[] runClient(String url, String token, int clients, int requestsPerClient) throws Exception {
+        Path classes = Path.of(LoadClient.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path result = Files.createTempFile("load-client", ".txt");
+        Path output = Files.createTempFile("load-client", ".log");
+        try {
+            Process process = new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", classes.toString(),
+                    LoadClient.class.getName(), url, token, String.valueOf(clients), String.valueOf(requestsPerClient),
+                    String.valueOf(RAMP_MS), result.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            assertThat(process.waitFor(5, TimeUnit.MINUTES)).isTrue();
+            assertThat(process.exitValue()).as(() -> read(output)).isZero();
+            return read(result).split("\n", 2);
+        } finally {
+            Files.deleteIfExists(result);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static String read(Path path) {
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
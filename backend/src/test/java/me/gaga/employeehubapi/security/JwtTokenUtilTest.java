@@ -0,0 +1,81 @@
+package me.gaga.employeehubapi.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.Key;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenUtilTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenUtilTest.class);
+
+    private static final String SECRET =
+            "employeeHubSecretKey123456789012345678901234567890employeeHubSecretKey123456789012345678901234567890";
+
+    private final JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(SECRET, 900_000L, 1_209_600_000L, new SimpleMeterRegistry());
+    private final User user = User.builder()
+            .id(42L)
+            .email("jane@employeehub.com")
+            .role(Role.ADMIN)
+            .build();
+
+    @Test
+    void parsesAllClaimsOnce() {
+        String token = jwtTokenUtil.generateToken(user);
+
+        JwtClaims claims = jwtTokenUtil.parseToken(token);
+
+        assertThat(claims.subject()).isEqualTo("jane@employeehub.com");
+        assertThat(claims.userId()).isEqualTo(42L);
+        assertThat(claims.role()).isEqualTo("ADMIN");
+        assertThat(jwtTokenUtil.validateToken(claims, user)).isTrue();
+        assertThatThrownBy(() -> jwtTokenUtil.parseToken(token.substring(0, token.length() - 2)))
+                .isInstanceOf(JwtException.class);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void benchmarkValidationsPerSecond() {
+        String token = jwtTokenUtil.generateToken(user);
+        int validations = 5_000;
+
+        // Previous path: extractUsername in the filter, then extractUsername and extractExpiration in
+        // validateToken, each rebuilding the key and the parser
+        long start = System.nanoTime();
+        for (int i = 0; i < validations; i++) {
+            String username = parseUncached(token).getSubject();
+            boolean valid = username.equals(parseUncached(token).getSubject())
+                    && !parseUncached(token).getExpiration().before(new Date());
+            assertThat(valid).isTrue();
+        }
+        double before = validations / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        start = System.nanoTime();
+        for (int i = 0; i < validations; i++) {
+            assertThat(jwtTokenUtil.validateToken(jwtTokenUtil.parseToken(token), user)).isTrue();
+        }
+        double after = validations / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        log.info("jwt validation: {} validations/sec before, {} validations/sec after", Math.round(before), Math.round(after));
+        assertThat(after).isGreaterThan(before);
+    }
+
+    private Claims parseUncached(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,265 @@
+package me.gaga.employeehubapi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.exception.ServiceUnavailableException;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PasswordHashingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingTest.class);
+
+    private static final long STORM_MS = 5_000;
+    private static final int STORM_CLIENTS = 16;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void legacyHashIsUpgradedOnLogin() throws Exception {
+        User user = createUser(new BCryptPasswordEncoder(4).encode("password"));
+
+        mockMvc.perform(login(user.getEmail())).andExpect(status().isOk());
+
+        String upgraded = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertThat(upgraded).startsWith("{bcrypt}$2a$10$");
+        assertThat(passwordEncoder.upgradeEncoding(upgraded)).isFalse();
+        mockMvc.perform(login(user.getEmail())).andExpect(status().isOk());
+    }
+
+    @Test
+    void saturatedHashingIsRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingUntil(release), 1, 1, new SimpleMeterRegistry());
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = callers.submit(() -> encoder.encode("a"));
+            Future<String> queued = callers.submit(() -> encoder.encode("b"));
+            awaitQueueDepth(encoder, 1);
+
+            assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(ServiceUnavailableException.class);
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        } finally {
+            callers.shutdownNow();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void queuedHashesAreServedHoweverLongTheyWait() throws Exception {
+        int queueCapacity = 16;
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingUntil(release), 1, queueCapacity, meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(queueCapacity + 1);
+        try {
+            List<Future<String>> logins = new ArrayList<>();
+            for (int i = 0; i <= queueCapacity; i++) {
+                logins.add(callers.submit(() -> encoder.encode("password")));
+            }
+            awaitQueueDepth(encoder, queueCapacity);
+            // Once admitted, a caller waits for its hash instead of timing out while the queue drains
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> login : logins) {
+                assertThat(login.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+            }
+            assertThat(meterRegistry.counter("security.password.rejected").count()).isZero();
+        } finally {
+            callers.shutdownNow();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void queueIsSizedToDrainWithinTheMaxWait() {
+        PasswordEncoder tenMillisecondHash = new BCryptPasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+        };
+        BoundedPasswordEncoder encoder = BoundedPasswordEncoder.calibrated(tenMillisecondHash, 2, 500, new SimpleMeterRegistry());
+        try {
+            // Two threads at 10 ms or more per hash finish at most 100 hashes in 500 ms
+            assertThat(encoder.queueCapacity()).isBetween(2, 100);
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void loginStorm() throws Exception {
+        User user = createUser(passwordEncoder.encode("password"));
+        String token = jwtTokenUtil.generateToken(user);
+
+        double idleP99 = apiP99During(token, () -> Thread.sleep(STORM_MS));
+
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        double boundedP99 = apiP99During(token, () -> storm(() -> {
+            int status = mockMvc.perform(login(user.getEmail())).andReturn().getResponse().getStatus();
+            (status == 200 ? logins : rejected).incrementAndGet();
+        }));
+
+        // What the old configuration did: every login hashes on its own request thread
+        BCryptPasswordEncoder inline = new BCryptPasswordEncoder(10);
+        String hash = inline.encode("password");
+        AtomicInteger inlineLogins = new AtomicInteger();
+        double inlineP99 = apiP99During(token, () -> storm(() -> {
+            inline.matches("password", hash);
+            inlineLogins.incrementAndGet();
+        }));
+
+        log.info("login storm ({} clients, {} cpus): bounded {} logins/s ({} rejected), API p99 {} ms; "
+                        + "inline {} logins/s, API p99 {} ms; idle API p99 {} ms",
+                STORM_CLIENTS, Runtime.getRuntime().availableProcessors(),
+                logins.get() * 1000 / STORM_MS, rejected.get(), Math.round(boundedP99),
+                inlineLogins.get() * 1000 / STORM_MS, Math.round(inlineP99), Math.round(idleP99));
+        assertThat(logins.get()).isPositive();
+        assertThat(boundedP99).isLessThan(inlineP99);
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    private void storm(Work login) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(STORM_CLIENTS);
+        long end = System.currentTimeMillis() + STORM_MS;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < STORM_CLIENTS; i++) {
+            futures.add(clients.submit(() -> {
+                while (System.currentTimeMillis() < end) {
+                    login.run();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        clients.shutdown();
+    }
+
+    // Two API clients call the leaderboard back to back while `load` runs; returns their p99 in milliseconds
+    private double apiP99During(String token, Work load) throws Exception {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        ExecutorService api = Executors.newFixedThreadPool(2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(api.submit(() -> {
+                while (done.getCount() > 0) {
+                    long start = System.nanoTime();
+                    mockMvc.perform(get("/kudos/leaderboard").header("Authorization", "Bearer " + token))
+                            .andExpect(status().isOk());
+                    latencies.add(System.nanoTime() - start);
+                }
+                return null;
+            }));
+        }
+        load.run();
+        done.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        api.shutdown();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() * 99 / 100) / 1_000_000.0;
+    }
+
+    private PasswordEncoder blockingUntil(CountDownLatch release) {
+        return new BCryptPasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+        };
+    }
+
+    private void awaitQueueDepth(BoundedPasswordEncoder encoder, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (encoder.queueDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(encoder.queueDepth()).isEqualTo(depth);
+    }
+
+    private RequestBuilder login(String email) {
+        return post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"password\"}");
+    }
+
+    private User createUser(String passwordHash) {
+        return userRepository.save(User.builder()
+                .name("Hash User")
+                .email("hash-" + UUID.randomUUID() + "@employeehub.com")
+                .password(passwordHash)
+                .role(Role.USER)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+}
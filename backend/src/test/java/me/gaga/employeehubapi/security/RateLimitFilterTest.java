@@ -0,0 +1,244 @@
+package me.gaga.employeehubapi.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "rate-limit.enabled=true",
+        "rate-limit.login.capacity=3",
+        "rate-limit.kudos-send.capacity=2",
+        "rate-limit.kudos-send.refill-per-minute=1",
+        "rate-limit.trusted-proxies=10.0.0.100"
+})
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilterTest.class);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void loginIsLimitedPerAccountAndClientAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(login("10.0.0.1", "nobody@employeehub.com")).andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(login("10.0.0.1", "Nobody@employeehub.com"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"))
+                .andExpect(jsonPath("$.status").value(429));
+        // Colleagues behind the same NAT address keep their own buckets
+        mockMvc.perform(login("10.0.0.1", "someone-else@employeehub.com")).andExpect(status().isUnauthorized());
+        mockMvc.perform(login("10.0.0.2", "nobody@employeehub.com")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void forwardedAddressIsTrustedOnlyFromTheProxy() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(login("10.0.0.100", "proxied@employeehub.com").header("X-Forwarded-For", "203.0.113.7"))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(login("10.0.0.100", "proxied@employeehub.com").header("X-Forwarded-For", "203.0.113.7"))
+                .andExpect(status().isTooManyRequests());
+        // Another client through the same proxy, and a spoofed header from a client outside it
+        mockMvc.perform(login("10.0.0.100", "proxied@employeehub.com").header("X-Forwarded-For", "203.0.113.8"))
+                .andExpect(status().isUnauthorized());
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(login("10.0.0.3", "proxied@employeehub.com").header("X-Forwarded-For", "198.51.100." + i))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(login("10.0.0.3", "proxied@employeehub.com").header("X-Forwarded-For", "198.51.100.9"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void leastRecentlyUsedBucketIsForgottenPastTheLimit() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(objectMapper, new SimpleMeterRegistry(), true, 2, Set.of(),
+                1, 1, 5, 10, 10, 20);
+        FilterChain chain = (request, response) -> { };
+
+        assertThat(sendAs(filter, chain, 1L)).isEqualTo(200);
+        assertThat(sendAs(filter, chain, 2L)).isEqualTo(200);
+        assertThat(sendAs(filter, chain, 1L)).isEqualTo(429);
+        // A newcomer is admitted; user 2, idle the longest, is the one forgotten
+        assertThat(sendAs(filter, chain, 3L)).isEqualTo(200);
+        assertThat(filter.bucketCount()).isEqualTo(2);
+        assertThat(sendAs(filter, chain, 1L)).isEqualTo(429);
+        assertThat(sendAs(filter, chain, 2L)).isEqualTo(200);
+    }
+
+    @Test
+    void sendIsLimitedPerUser() throws Exception {
+        String limited = jwtTokenUtil.generateToken(createUser());
+        String other = jwtTokenUtil.generateToken(createUser());
+
+        mockMvc.perform(send(limited)).andExpect(status().isNotFound());
+        mockMvc.perform(send(limited)).andExpect(status().isNotFound());
+        mockMvc.perform(send(limited))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "60"));
+        mockMvc.perform(send(other)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bucketRefillsAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(2, 100, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(100);
+        assertThat(bucket.tryAcquire(40)).isEqualTo(60);
+        assertThat(bucket.tryAcquire(100)).isZero();
+        assertThat(bucket.isFull(250)).isFalse();
+        assertThat(bucket.isFull(300)).isTrue();
+    }
+
+    @Test
+    void concurrentUsersEachGetOneBucket() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(objectMapper, new SimpleMeterRegistry(), true, 100, Set.of(),
+                1_000_000, 1_000_000, 5, 10, 10, 20);
+
+        run(filter, (request, response) -> { }, 8, 1_000);
+
+        assertThat(filter.bucketCount()).isEqualTo(8);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void filterOverheadUnderConcurrency() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(objectMapper, new SimpleMeterRegistry(), true, 100_000, Set.of(),
+                1_000_000_000, 1_000_000_000, 5, 10, 10, 20);
+        FilterChain chain = (request, response) -> { };
+        int threads = 8;
+        int iterations = 500_000;
+
+        run(filter, chain, threads, iterations / 5);
+        // Best of three, so a GC pause from an earlier test in this JVM doesn't decide the result
+        long elapsed = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            elapsed = Math.min(elapsed, run(filter, chain, threads, iterations));
+        }
+
+        double nanosPerRequest = (double) elapsed / ((long) threads * iterations);
+        log.info("rate limit filter: {} threads on {} cpus, {} ns per request, {} buckets",
+                threads, Runtime.getRuntime().availableProcessors(), Math.round(nanosPerRequest), filter.bucketCount());
+        assertThat(nanosPerRequest).isLessThan(1_000);
+    }
+
+    // Each thread is a distinct user hitting the limited send route; returns wall-clock nanoseconds
+    private long run(RateLimitFilter filter, FilterChain chain, int threads, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long userId = t + 1;
+            futures.add(executor.submit(() -> {
+                AuthenticatedUser principal = new AuthenticatedUser(userId, "bench@employeehub.com", Role.USER);
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+                MockHttpServletRequest request = new MockHttpServletRequest("POST", "/kudos/send");
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                for (int i = 0; i < iterations; i++) {
+                    filter.doFilter(request, response, chain);
+                }
+                assertThat(response.getStatus()).isEqualTo(200);
+                SecurityContextHolder.clearContext();
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private int sendAs(RateLimitFilter filter, FilterChain chain, long userId) throws Exception {
+        AuthenticatedUser principal = new AuthenticatedUser(userId, "lru@employeehub.com", Role.USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        try {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", "/kudos/send"), response, chain);
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private MockHttpServletRequestBuilder login(String remoteAddress, String email) {
+        return post("/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddress);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"wrong\"}");
+    }
+
+    private MockHttpServletRequestBuilder send(String token) {
+        return post("/kudos/send")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"receiverId\":999999,\"amount\":1,\"message\":\"hi\"}");
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .name("Limited User")
+                .email("limit-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+}
@@ -0,0 +1,165 @@
+package me.gaga.employeehubapi.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.RevokedTokenRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RefreshTokenTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void refreshRotatesTokensAndRejectsReplays() throws Exception {
+        JsonNode login = login(createUser());
+        String refreshToken = login.get("refreshToken").asText();
+
+        JsonNode refreshed = json(mockMvc.perform(refresh(refreshToken)).andExpect(status().isOk()));
+        mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + refreshed.get("token").asText()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(refresh(refreshToken)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + refreshToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logoutRevokesBothTokens() throws Exception {
+        JsonNode login = login(createUser());
+        String accessToken = login.get("token").asText();
+        String refreshToken = login.get("refreshToken").asText();
+
+        mockMvc.perform(post("/auth/logout")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody(refreshToken)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(refresh(refreshToken)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void signingOperationsUnderTrafficReplay() throws Exception {
+        // One simulated minute of a session: login, a /auth/me per route change, one refresh
+        int routeChanges = 60;
+        double before = signed();
+
+        JsonNode login = login(createUser());
+        String accessToken = login.get("token").asText();
+        for (int i = 0; i < routeChanges; i++) {
+            mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + accessToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.token").doesNotExist());
+        }
+        mockMvc.perform(refresh(login.get("refreshToken").asText())).andExpect(status().isOk());
+
+        double signatures = signed() - before;
+        // Previously one per login and per /auth/me; now the login's pair and the refresh's pair
+        assertThat(signatures).isEqualTo(4);
+    }
+
+    @Test
+    void revocationsHoldOnEveryNodeUntilTheTokenExpires() {
+        // Two lists over one table stand in for two nodes, or one node before and after a restart
+        TokenRevocationList node = new TokenRevocationList(revokedTokenRepository, transactionTemplate, 60_000, 100);
+        TokenRevocationList otherNode = new TokenRevocationList(revokedTokenRepository, transactionTemplate, 60_000, 100);
+        String live = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+
+        assertThat(otherNode.isRevoked(live)).isFalse();
+        assertThat(node.revoke(live, new Date(System.currentTimeMillis() + 60_000))).isTrue();
+        assertThat(node.revoke(expired, new Date(System.currentTimeMillis() - 1_000))).isTrue();
+        assertThat(otherNode.revoke(live, new Date(System.currentTimeMillis() + 60_000))).isFalse();
+
+        TokenRevocationList restarted = new TokenRevocationList(revokedTokenRepository, transactionTemplate, 60_000, 1);
+        for (int i = 0; i < 10; i++) {
+            restarted.isRevoked(UUID.randomUUID().toString());
+        }
+        assertThat(restarted.isRevoked(live)).isTrue();
+
+        node.prune();
+        assertThat(revokedTokenRepository.existsById(live)).isTrue();
+        assertThat(revokedTokenRepository.existsById(expired)).isFalse();
+    }
+
+    private double signed() {
+        return meterRegistry.counter("jwt.tokens.signed").count();
+    }
+
+    private JsonNode login(User user) throws Exception {
+        return json(mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + user.getEmail() + "\",\"password\":\"password\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    private RequestBuilder refresh(String refreshToken) {
+        return post("/auth/refresh").contentType(MediaType.APPLICATION_JSON).content(refreshBody(refreshToken));
+    }
+
+    private String refreshBody(String refreshToken) {
+        return "{\"refreshToken\":\"" + refreshToken + "\"}";
+    }
+
+    private JsonNode json(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .name("Refresh User")
+                .email("refresh-" + UUID.randomUUID() + "@employeehub.com")
+                .password(passwordEncoder.encode("password"))
+                .role(Role.USER)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+}
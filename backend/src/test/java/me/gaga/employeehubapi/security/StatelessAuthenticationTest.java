@@ -0,0 +1,209 @@
+package me.gaga.employeehubapi.security;
+
+import jakarta.persistence.EntityManagerFactory;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StatelessAuthenticationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StatelessAuthenticationTest.class);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @AfterEach
+    void restoreMode() {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessPrincipal", true);
+        ReflectionTestUtils.setField(principalCache, "accessTtlMs", 5000L);
+        ReflectionTestUtils.setField(tokenRevocationList, "checkTtlMs", 5000L);
+    }
+
+    @Test
+    void readRequestsSkipTheUserLookup() throws Exception {
+        String token = jwtTokenUtil.generateToken(createUser(Role.USER));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        int requests = 50;
+        ReflectionTestUtils.setField(principalCache, "accessTtlMs", 60_000L);
+        ReflectionTestUtils.setField(tokenRevocationList, "checkTtlMs", 60_000L);
+
+        statistics.clear();
+        for (int i = 0; i < requests; i++) {
+            mockMvc.perform(leaderboard(token)).andExpect(status().isOk());
+        }
+        long stateless = statistics.getPrepareStatementCount();
+
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessPrincipal", false);
+        statistics.clear();
+        for (int i = 0; i < requests; i++) {
+            mockMvc.perform(leaderboard(token)).andExpect(status().isOk());
+        }
+        long lookedUp = statistics.getPrepareStatementCount();
+
+        // One role check and one revocation check for the whole burst, instead of one user load per request
+        assertThat(stateless).isEqualTo(2);
+        assertThat(lookedUp).isEqualTo(requests);
+    }
+
+    @Test
+    void fullUserIsServedFromThePrincipalCache() throws Exception {
+        String token = jwtTokenUtil.generateToken(createUser(Role.USER));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ReflectionTestUtils.setField(principalCache, "accessTtlMs", 60_000L);
+        ReflectionTestUtils.setField(tokenRevocationList, "checkTtlMs", 60_000L);
+
+        statistics.clear();
+        mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+        mockMvc.perform(get("/auth/me").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+
+        // One role check, one revocation check and one user load, all shared by the second request
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void demotedAdminTokenLosesAdminAccess() throws Exception {
+        User admin = createUser(Role.ADMIN);
+        User other = createUser(Role.ADMIN);
+        String adminToken = jwtTokenUtil.generateToken(admin);
+        String otherToken = jwtTokenUtil.generateToken(other);
+
+        mockMvc.perform(updateRole(adminToken, other.getId(), Role.ADMIN)).andExpect(status().isOk());
+        mockMvc.perform(updateRole(otherToken, admin.getId(), Role.USER)).andExpect(status().isOk());
+
+        mockMvc.perform(updateRole(adminToken, other.getId(), Role.ADMIN)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void changesMadeOutsideThisNodeApplyOnceTheCheckExpires() throws Exception {
+        User admin = createUser(Role.ADMIN);
+        User disabled = createUser(Role.USER);
+        User deleted = createUser(Role.USER);
+        String adminToken = jwtTokenUtil.generateToken(admin);
+        String disabledToken = jwtTokenUtil.generateToken(disabled);
+        String deletedToken = jwtTokenUtil.generateToken(deleted);
+        mockMvc.perform(updateRole(adminToken, admin.getId(), Role.ADMIN)).andExpect(status().isOk());
+        mockMvc.perform(leaderboard(disabledToken)).andExpect(status().isOk());
+        mockMvc.perform(leaderboard(deletedToken)).andExpect(status().isOk());
+
+        // As another node or a restart would see them: written straight to the database, nothing evicted here
+        jdbcTemplate.update("UPDATE users SET role = 'USER' WHERE id = ?", admin.getId());
+        jdbcTemplate.update("UPDATE users SET enabled = FALSE WHERE id = ?", disabled.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", deleted.getId());
+        ReflectionTestUtils.setField(principalCache, "accessTtlMs", 0L);
+
+        mockMvc.perform(updateRole(adminToken, admin.getId(), Role.ADMIN)).andExpect(status().isForbidden());
+        mockMvc.perform(leaderboard(disabledToken)).andExpect(status().isUnauthorized());
+        mockMvc.perform(leaderboard(deletedToken)).andExpect(status().isUnauthorized());
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void readHeavyLoad() throws Exception {
+        String token = jwtTokenUtil.generateToken(createUser(Role.USER));
+
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessPrincipal", false);
+        double lookedUp = requestsPerSecond(token);
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessPrincipal", true);
+        double stateless = requestsPerSecond(token);
+
+        log.info("jwt authentication: {} req/s stateless, {} req/s with user lookup", Math.round(stateless), Math.round(lookedUp));
+    }
+
+    private double requestsPerSecond(String token) throws Exception {
+        int threads = 8;
+        int requestsPerThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < requestsPerThread; j++) {
+                    mockMvc.perform(leaderboard(token)).andExpect(status().isOk());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        return threads * requestsPerThread / (elapsed / 1_000_000_000.0);
+    }
+
+    private RequestBuilder leaderboard(String token) {
+        return get("/kudos/leaderboard").header("Authorization", "Bearer " + token);
+    }
+
+    private RequestBuilder updateRole(String token, Long userId, Role role) {
+        return patch("/users/{userId}/role", userId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"role\":\"" + role.name() + "\"}");
+    }
+
+    private User createUser(Role role) {
+        return userRepository.save(User.builder()
+                .name("Auth User")
+                .email("auth-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(role)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+}
@@ -0,0 +1,281 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.gaga.employeehubapi.RecordedStatements;
+import me.gaga.employeehubapi.dto.kudos.KudosDTO;
+import me.gaga.employeehubapi.dto.reward.RewardRedemptionDTO;
+import me.gaga.employeehubapi.entity.Reward;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import me.gaga.employeehubapi.repository.RewardRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.JwtTokenUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyTest.class);
+
+    private static final int DUPLICATES = 32;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private KudosRepository kudosRepository;
+
+    @Autowired
+    private RewardRepository rewardRepository;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentDuplicateSendsMoveKudosOnce() throws Exception {
+        User sender = createUser(1_000);
+        User receiver = createUser(0);
+        String token = jwtTokenUtil.generateToken(sender);
+        String key = UUID.randomUUID().toString();
+
+        List<MockHttpServletResponse> responses = submitConcurrently(DUPLICATES, () -> post("/kudos/send")
+                .header("Authorization", "Bearer " + token)
+                .header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"receiverId\": " + receiver.getId() + ", \"amount\": 10, \"message\": \"retry me\"}"));
+
+        assertThat(responses).extracting(MockHttpServletResponse::getStatus).containsOnly(200);
+        Set<Long> ids = responses.stream().map(response -> read(response, KudosDTO.class).getId()).collect(Collectors.toSet());
+        assertThat(ids).hasSize(1);
+        assertThat(responses.stream().filter(response -> response.getHeader(IdempotencyService.REPLAYED_HEADER) != null))
+                .hasSize(DUPLICATES - 1);
+        assertThat(kudosRepository.findBySender(sender)).hasSize(1);
+        assertThat(userRepository.findById(sender.getId()).orElseThrow().getKudosBalance()).isEqualTo(990);
+
+        // Same key, different request
+        MockHttpServletResponse reused = mockMvc.perform(post("/kudos/send")
+                .header("Authorization", "Bearer " + token)
+                .header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"receiverId\": " + receiver.getId() + ", \"amount\": 20, \"message\": \"retry me\"}"))
+                .andReturn().getResponse();
+        assertThat(reused.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    void concurrentDuplicateRedeemsChargeOnce() throws Exception {
+        Reward reward = rewardRepository.save(Reward.builder().name("Idempotent mug").kudosCost(40).stock(5).build());
+        User buyer = createUser(100);
+        String token = jwtTokenUtil.generateToken(buyer);
+        String key = UUID.randomUUID().toString();
+
+        List<MockHttpServletResponse> responses = submitConcurrently(DUPLICATES, () -> post("/rewards/" + reward.getId() + "/redeem")
+                .header("Authorization", "Bearer " + token)
+                .header(IdempotencyService.HEADER, key));
+
+        assertThat(responses).extracting(MockHttpServletResponse::getStatus).containsOnly(200);
+        assertThat(responses.stream().map(response -> read(response, RewardRedemptionDTO.class).getId()).distinct()).hasSize(1);
+        assertThat(userRepository.findById(buyer.getId()).orElseThrow().getKudosBalance()).isEqualTo(60);
+        assertThat(rewardRepository.findById(reward.getId()).orElseThrow().getStock()).isEqualTo(4);
+    }
+
+    @Test
+    void failedAttemptIsNotReplayed() throws Exception {
+        Reward reward = rewardRepository.save(Reward.builder().name("Idempotent tee").kudosCost(40).build());
+        User buyer = createUser(10);
+        String token = jwtTokenUtil.generateToken(buyer);
+        String key = UUID.randomUUID().toString();
+        RequestBuilder redeem = post("/rewards/" + reward.getId() + "/redeem")
+                .header("Authorization", "Bearer " + token)
+                .header(IdempotencyService.HEADER, key);
+
+        assertThat(mockMvc.perform(redeem).andReturn().getResponse().getStatus()).isEqualTo(400);
+        jdbcTemplate.update("UPDATE users SET kudos_balance = 100 WHERE id = ?", buyer.getId());
+        assertThat(mockMvc.perform(redeem).andReturn().getResponse().getStatus()).isEqualTo(200);
+        MockHttpServletResponse replayed = mockMvc.perform(redeem).andReturn().getResponse();
+        assertThat(replayed.getHeader(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(userRepository.findById(buyer.getId()).orElseThrow().getKudosBalance()).isEqualTo(60);
+    }
+
+    @Test
+    void replaysAreServedFromMemory() {
+        User user = createUser(0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        KudosDTO body = KudosDTO.builder().id(1L).amount(1).message("noop").build();
+        String key = UUID.randomUUID().toString();
+
+        assertThat(RecordedStatements.during(() -> idempotencyService.execute(null, "noop", KudosDTO.class, () -> body)))
+                .isEmpty();
+        // A new key is claimed and completed in the database, a replay of it never reaches the database
+        assertThat(RecordedStatements.during(() -> idempotencyService.execute(key, "noop", KudosDTO.class, () -> body)))
+                .isNotEmpty();
+        assertThat(RecordedStatements.during(() -> idempotencyService.execute(key, "noop", KudosDTO.class, () -> body)))
+                .isEmpty();
+        assertThat(idempotencyService.cachedCount()).isPositive();
+    }
+
+    @Test
+    void abandonedClaimIsTakenOverAfterItsLease() throws Exception {
+        User sender = createUser(100);
+        User receiver = createUser(0);
+        String token = jwtTokenUtil.generateToken(sender);
+        String body = "{\"receiverId\": " + receiver.getId() + ", \"amount\": 10, \"message\": \"once more\"}";
+        String fingerprint = "kudos-send:" + receiver.getId() + ":10:once more";
+        String fresh = UUID.randomUUID().toString();
+        String abandoned = UUID.randomUUID().toString();
+        // Claims whose result never got recorded, as a node that died mid-request leaves them
+        insertClaim(sender, fresh, fingerprint, LocalDateTime.now());
+        insertClaim(sender, abandoned, fingerprint, LocalDateTime.now().minusHours(1));
+
+        assertThat(mockMvc.perform(send(token, fresh, body)).andReturn().getResponse().getStatus()).isEqualTo(409);
+        assertThat(mockMvc.perform(send(token, abandoned, body)).andReturn().getResponse().getStatus()).isEqualTo(200);
+        MockHttpServletResponse replayed = mockMvc.perform(send(token, abandoned, body)).andReturn().getResponse();
+        assertThat(replayed.getHeader(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(userRepository.findById(sender.getId()).orElseThrow().getKudosBalance()).isEqualTo(90);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void lookupOverheadPerRequest() {
+        User user = createUser(0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        KudosDTO body = KudosDTO.builder().id(1L).amount(1).message("noop").build();
+        int iterations = 2_000;
+
+        long withoutKey = perRequestNanos(iterations, i -> idempotencyService.execute(null, "noop", KudosDTO.class, () -> body));
+        long firstUse = perRequestNanos(iterations, i -> idempotencyService.execute(
+                "first-" + i + "-" + UUID.randomUUID(), "noop", KudosDTO.class, () -> body));
+        String hot = UUID.randomUUID().toString();
+        idempotencyService.execute(hot, "noop", KudosDTO.class, () -> body);
+        long cachedReplay = perRequestNanos(iterations, i -> idempotencyService.execute(hot, "noop", KudosDTO.class, () -> body));
+
+        log.info("idempotency overhead per request: no key {} ns, new key {} us (claim + complete), replay from memory {} us",
+                withoutKey, firstUse / 1_000, cachedReplay / 1_000);
+        assertThat(cachedReplay).isLessThan(firstUse);
+    }
+
+    private long perRequestNanos(int iterations, IntConsumer call) {
+        for (int i = 0; i < iterations / 4; i++) {
+            call.accept(-i - 1);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.accept(i);
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private RequestBuilder send(String token, String key, String body) {
+        return post("/kudos/send")
+                .header("Authorization", "Bearer " + token)
+                .header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+    }
+
+    private void insertClaim(User user, String key, String fingerprint, LocalDateTime claimedAt) throws Exception {
+        jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, created_at) VALUES (?, ?, ?, ?)",
+                user.getId(), key, sha256(fingerprint), claimedAt);
+    }
+
+    private static String sha256(String value) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<MockHttpServletResponse> submitConcurrently(int count, Supplier<RequestBuilder> request)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(request.get()).andReturn().getResponse();
+            }));
+        }
+        start.countDown();
+        List<MockHttpServletResponse> responses = new ArrayList<>();
+        for (Future<MockHttpServletResponse> future : futures) {
+            responses.add(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+        return responses;
+    }
+
+    private <T> T read(MockHttpServletResponse response, Class<T> type) {
+        try {
+            return objectMapper.readValue(response.getContentAsByteArray(), type);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private User createUser(int balance) {
+        return userRepository.save(User.builder()
+                .name("Retrying User")
+                .email("idempotent-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .kudosBalance(balance)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+}
@@ -0,0 +1,235 @@
+package me.gaga.employeehubapi.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import me.gaga.employeehubapi.RecordedStatements;
+import me.gaga.employeehubapi.dto.kudos.KudosDTO;
+import me.gaga.employeehubapi.dto.kudos.SendKudosRequest;
+import me.gaga.employeehubapi.entity.Kudos;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class KudosFeedTest {
+
+    private static final Logger log = LoggerFactory.getLogger(KudosFeedTest.class);
+
+    private static final int HISTORY = 20_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 500;
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    private KudosService kudosService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private KudosRepository kudosRepository;
+
+    @Autowired
+    private RecentKudosFeed recentKudosFeed;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void deepCursorPagesReadTheSameRowsAsTheFirstPage() {
+        User sender = createUser();
+        User receiver = createUser();
+        // Dated years back so the windowed leaderboards never replay this history
+        jdbcTemplate.update("""
+                INSERT INTO kudos (sender_id, receiver_id, amount, message, created_at, is_streak_bonus)
+                SELECT ?, ?, 1, 'history', DATEADD('SECOND', X / 4, TIMESTAMP '2020-01-01 00:00:00'), FALSE
+                FROM SYSTEM_RANGE(1, ?)
+                """, sender.getId(), receiver.getId(), HISTORY);
+
+        KudosDTO deepCursor = kudosService.feed(DEEP_PAGE - 1, PAGE_SIZE).get(PAGE_SIZE - 1);
+        String before = cursorOf(deepCursor);
+
+        assertThat(kudosService.feedBefore(before, PAGE_SIZE)).extracting(KudosDTO::getId)
+                .containsExactlyElementsOf(kudosService.feed(DEEP_PAGE, PAGE_SIZE).stream().map(KudosDTO::getId).toList());
+        assertThat(kudosService.feedBefore(null, PAGE_SIZE)).extracting(KudosDTO::getId)
+                .containsExactlyElementsOf(kudosService.feed(0, PAGE_SIZE).stream().map(KudosDTO::getId).toList());
+
+        LocalDateTime newest = LocalDateTime.now().plusDays(1);
+        long offsetDeep = kudosRowsRead(() -> kudosService.feed(DEEP_PAGE, PAGE_SIZE),
+                DEEP_PAGE * PAGE_SIZE, PAGE_SIZE + 1);
+        long cursorFirst = kudosRowsRead(() -> kudosService.feedBefore(newest + "," + Long.MAX_VALUE, PAGE_SIZE),
+                newest, Long.MAX_VALUE, PAGE_SIZE + 1);
+        long cursorDeep = kudosRowsRead(() -> kudosService.feedBefore(before, PAGE_SIZE),
+                deepCursor.getCreatedAt(), deepCursor.getId(), PAGE_SIZE + 1);
+
+        // An offset page walks past every row before it; a cursor page seeks and reads one page plus the look-ahead,
+        // and at most a few rows sharing the cursor's timestamp
+        assertThat(cursorDeep).isLessThan(offsetDeep);
+        assertThat(cursorFirst).isBetween(PAGE_SIZE + 1L, 2L * PAGE_SIZE);
+        assertThat(cursorDeep).isBetween(PAGE_SIZE + 1L, 2L * PAGE_SIZE);
+        assertThat(offsetDeep).isGreaterThanOrEqualTo((long) DEEP_PAGE * PAGE_SIZE);
+    }
+
+    @Test
+    void feedPageIsOneStatementRegardlessOfSize() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(createUser());
+        }
+        List<Kudos> kudos = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            kudos.add(Kudos.builder()
+                    .sender(users.get(i % users.size()))
+                    .receiver(users.get((i + 1) % users.size()))
+                    .amount(1)
+                    .message("statistics")
+                    .build());
+        }
+        kudosRepository.saveAll(kudos);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int size : new int[]{1, 20, 50}) {
+            statistics.clear();
+            List<KudosDTO> page = kudosService.feedBefore(newestCursor(), size);
+            assertThat(page).hasSize(size);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+            statistics.clear();
+            kudosService.feedBefore(cursorOf(page.get(0)), size);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void firstPagesAreServedFromRecentKudos() {
+        User sender = createUser();
+        User receiver = createUser();
+        List<Long> sent = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sent.add(0, send(sender, receiver).getId());
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(kudosService.feed(0, 3)).extracting(KudosDTO::getId).containsExactlyElementsOf(sent);
+        assertThat(kudosService.feedBefore(null, 2)).extracting(KudosDTO::getId).containsExactlyElementsOf(sent.subList(0, 2));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        kudosService.feed(recentKudosFeed.capacity(), 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void recentKudosThroughputAgainstDatabaseFeed() throws Exception {
+        User sender = createUser();
+        User receiver = createUser();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            send(sender, receiver);
+        }
+
+        double recent = readsPerSecond(() -> kudosService.feed(0, PAGE_SIZE));
+        double database = readsPerSecond(() -> kudosService.feedBefore(newestCursor(), PAGE_SIZE));
+
+        log.info("kudos feed: first page {} reads/sec from recent kudos, {} reads/sec from the database",
+                Math.round(recent), Math.round(database));
+        assertThat(recent).isGreaterThan(database);
+    }
+
+    private double readsPerSecond(Supplier<List<KudosDTO>> page) throws Exception {
+        int threads = 8;
+        int readsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < readsPerThread; j++) {
+                    assertThat(page.get()).hasSize(PAGE_SIZE);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        return threads * readsPerThread / (elapsed / 1_000_000_000.0);
+    }
+
+    private KudosDTO send(User sender, User receiver) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(sender, null, sender.getAuthorities()));
+        try {
+            return kudosService.sendKudos(SendKudosRequest.builder()
+                    .receiverId(receiver.getId())
+                    .amount(1)
+                    .message("feed")
+                    .build());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Cursor past every kudos, so the first page is always read from the database
+    private String newestCursor() {
+        return LocalDateTime.now().plusDays(1) + "," + Long.MAX_VALUE;
+    }
+
+    private String cursorOf(KudosDTO kudos) {
+        LocalDateTime createdAt = kudos.getCreatedAt();
+        return createdAt + "," + kudos.getId();
+    }
+
+    // H2's EXPLAIN ANALYZE reports the rows read per table; the feed query reads kudos first
+    private long kudosRowsRead(Runnable page, Object... parameters) {
+        List<String> statements = RecordedStatements.during(page);
+        assertThat(statements).hasSize(1);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN ANALYZE " + statements.get(0), String.class, parameters);
+        Matcher scanCount = SCAN_COUNT.matcher(plan);
+        assertThat(scanCount.find()).isTrue();
+        return Long.parseLong(scanCount.group(1));
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .name("Feed User")
+                .email("feed-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+}
@@ -0,0 +1,194 @@
+package me.gaga.employeehubapi.service;
+
+import me.gaga.employeehubapi.dto.kudos.LeaderboardEntryDTO;
+import me.gaga.employeehubapi.entity.Kudos;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KudosLeaderboardTest {
+
+    private static final Logger log = LoggerFactory.getLogger(KudosLeaderboardTest.class);
+
+    @Test
+    void matchesFullSortAfterIncrementalUpdates() {
+        KudosLeaderboard leaderboard = newLeaderboard();
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            User user = user(id, random.nextInt(50));
+            users.add(user);
+            leaderboard.update(user);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            User user = users.get(random.nextInt(users.size()));
+            user.setKudosReceived(user.getKudosReceived() + random.nextInt(1, 20));
+            leaderboard.update(user);
+        }
+
+        List<User> expected = sorted(users);
+        assertThat(leaderboard.top(100)).extracting(LeaderboardEntryDTO::getId)
+                .containsExactlyElementsOf(expected.subList(0, 100).stream().map(User::getId).toList());
+
+        User middle = expected.get(1_000);
+        List<LeaderboardEntryDTO> window = leaderboard.around(middle.getId(), 11);
+        assertThat(window).hasSize(11);
+        assertThat(window.get(5).getId()).isEqualTo(middle.getId());
+        assertThat(window.get(5).getRank()).isEqualTo(1_001);
+
+        List<LeaderboardEntryDTO> bottom = leaderboard.around(expected.get(expected.size() - 1).getId(), 11);
+        assertThat(bottom).hasSize(11);
+        assertThat(bottom.get(10).getRank()).isEqualTo(2_000);
+    }
+
+    @Test
+    void ignoresStaleSnapshots() {
+        KudosLeaderboard leaderboard = newLeaderboard();
+        leaderboard.update(user(1L, 10));
+        leaderboard.update(user(1L, 5));
+
+        assertThat(leaderboard.top(1)).extracting(LeaderboardEntryDTO::getKudosReceived).containsExactly(10);
+        assertThat(leaderboard.size()).isEqualTo(1);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void benchmarkAgainstFullSort() {
+        for (int size : new int[]{10_000, 100_000, 1_000_000}) {
+            KudosLeaderboard leaderboard = newLeaderboard();
+            Random random = new Random(size);
+            List<User> users = new ArrayList<>(size);
+            for (long id = 1; id <= size; id++) {
+                User user = user(id, random.nextInt(10_000));
+                users.add(user);
+                leaderboard.update(user);
+            }
+
+            int reads = 1_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                leaderboard.top(20);
+                leaderboard.around(users.get(random.nextInt(size)).getId(), 20);
+            }
+            long boardNanos = (System.nanoTime() - start) / reads;
+
+            int sorts = 5;
+            start = System.nanoTime();
+            for (int i = 0; i < sorts; i++) {
+                sorted(users);
+            }
+            long sortNanos = (System.nanoTime() - start) / sorts;
+
+            log.info("kudos leaderboard: {} users, top-20 + around-me {} us, full sort {} us",
+                    size, TimeUnit.NANOSECONDS.toMicros(boardNanos), TimeUnit.NANOSECONDS.toMicros(sortNanos));
+            assertThat(boardNanos).isLessThan(sortNanos);
+        }
+    }
+
+    @Test
+    void windowsCountOnlyTheCurrentBucket() {
+        KudosLeaderboard leaderboard = newLeaderboard();
+        User alice = user(1L, 0);
+        User bob = user(2L, 0);
+        LocalDateTime now = LocalDateTime.now();
+
+        leaderboard.record(kudos(alice, 5, now.minusMonths(2)));
+        leaderboard.record(kudos(bob, 3, now));
+        leaderboard.record(kudos(alice, 2, now));
+        leaderboard.record(kudos(bob, 1, now));
+
+        assertThat(leaderboard.top(KudosLeaderboard.Window.WEEK, 10))
+                .extracting(LeaderboardEntryDTO::getId, LeaderboardEntryDTO::getKudosReceived)
+                .containsExactly(tuple(2L, 4), tuple(1L, 2));
+        assertThat(leaderboard.around(KudosLeaderboard.Window.DAY, 1L, 1))
+                .extracting(LeaderboardEntryDTO::getRank).containsExactly(2);
+    }
+
+    @Test
+    void sendsRecordedDuringAReloadCountOnce() {
+        UserRepository userRepository = mock(UserRepository.class);
+        KudosRepository kudosRepository = mock(KudosRepository.class);
+        KudosLeaderboard leaderboard = new KudosLeaderboard(userRepository, kudosRepository);
+        LocalDateTime now = LocalDateTime.now();
+        User alice = user(1L, 5);
+        Kudos replayedLate = Kudos.builder().id(9L).receiver(alice).amount(2).createdAt(now).build();
+        Kudos replayedAndRecorded = Kudos.builder().id(10L).receiver(alice).amount(3).createdAt(now).build();
+
+        UserRepository.LeaderboardRow row = mock(UserRepository.LeaderboardRow.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getRole()).thenReturn(Role.USER);
+        when(row.getKudosReceived()).thenReturn(5);
+        when(userRepository.streamLeaderboardRows()).thenAnswer(invocation -> Stream.of(row));
+        when(kudosRepository.findFirstIdSince(any())).thenReturn(9L);
+        when(kudosRepository.findReceivedSince(any(), eq(8L), any())).thenAnswer(invocation -> {
+            // Both sends land while the replay is reading; only the second one committed too late for it
+            leaderboard.record(replayedAndRecorded);
+            alice.setKudosReceived(9);
+            leaderboard.record(Kudos.builder().id(11L).receiver(alice).amount(4).createdAt(now).build());
+            return List.of(received(9L, alice, 2, now), received(10L, alice, 3, now));
+        });
+
+        leaderboard.reload();
+        // Committed before the reload read it, but recorded only after the swap
+        leaderboard.record(replayedLate);
+
+        assertThat(leaderboard.top(KudosLeaderboard.Window.DAY, 1))
+                .extracting(LeaderboardEntryDTO::getKudosReceived).containsExactly(9);
+        assertThat(leaderboard.top(1)).extracting(LeaderboardEntryDTO::getKudosReceived).containsExactly(9);
+    }
+
+    private KudosRepository.ReceivedKudos received(Long id, User receiver, int amount, LocalDateTime createdAt) {
+        KudosRepository.ReceivedKudos row = mock(KudosRepository.ReceivedKudos.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getReceiverId()).thenReturn(receiver.getId());
+        when(row.getReceiverRole()).thenReturn(receiver.getRole());
+        when(row.getAmount()).thenReturn(amount);
+        when(row.getCreatedAt()).thenReturn(createdAt);
+        return row;
+    }
+
+    private KudosLeaderboard newLeaderboard() {
+        return new KudosLeaderboard(mock(UserRepository.class), mock(KudosRepository.class));
+    }
+
+    private Kudos kudos(User receiver, int amount, LocalDateTime createdAt) {
+        receiver.setKudosReceived(receiver.getKudosReceived() + amount);
+        return Kudos.builder().receiver(receiver).amount(amount).createdAt(createdAt).build();
+    }
+
+    private List<User> sorted(List<User> users) {
+        return users.stream()
+                .sorted(Comparator.comparing(User::getKudosReceived).reversed().thenComparing(User::getId))
+                .toList();
+    }
+
+    private User user(Long id, int kudosReceived) {
+        return User.builder()
+                .id(id)
+                .name("User " + id)
+                .role(Role.USER)
+                .kudosReceived(kudosReceived)
+                .build();
+    }
+}
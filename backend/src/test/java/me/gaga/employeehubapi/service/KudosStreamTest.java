@@ -0,0 +1,235 @@
+package me.gaga.employeehubapi.service;
+
+import me.gaga.employeehubapi.dto.kudos.KudosDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KudosStreamTest {
+
+    private static final Logger log = LoggerFactory.getLogger(KudosStreamTest.class);
+
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final KudosStream stream = new KudosStream(new RecentKudosFeed(500), QUEUE_CAPACITY, 4, 60_000, false);
+    private long nextId = 1;
+
+    @AfterEach
+    void shutdown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void thousandsOfSubscribersReceiveEveryKudos() throws Exception {
+        int subscribers = 2_000;
+        int events = 20;
+        List<RecordingSink> sinks = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            RecordingSink sink = new RecordingSink();
+            sinks.add(sink);
+            stream.register(sink, null);
+        }
+
+        List<Long> published = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            KudosDTO kudos = kudos();
+            published.add(kudos.getId());
+            stream.publish(kudos);
+            // Paced so no subscriber is evicted for falling behind
+            for (RecordingSink sink : sinks) {
+                awaitSize(sink.received, i + 1);
+            }
+        }
+
+        for (RecordingSink sink : sinks) {
+            assertThat(sink.received).extracting(KudosDTO::getId).containsExactlyElementsOf(published);
+            assertThat(sink.closed).isFalse();
+        }
+        assertThat(stream.subscriberCount()).isEqualTo(subscribers);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void deliveryLatencyAtTwentyThousandSubscribers() throws Exception {
+        int subscribers = 20_000;
+        int events = 20;
+        Map<Long, Long> publishedAt = new ConcurrentHashMap<>();
+        long[] latencies = new long[subscribers * events];
+        AtomicInteger delivered = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(subscribers * events);
+
+        long heapBefore = usedHeap();
+        for (int i = 0; i < subscribers; i++) {
+            stream.register(new RecordingSink() {
+                @Override
+                public void send(KudosDTO kudos) {
+                    latencies[delivered.getAndIncrement()] = System.nanoTime() - publishedAt.get(kudos.getId());
+                    done.countDown();
+                }
+            }, null);
+        }
+        long bytesPerSubscriber = (usedHeap() - heapBefore) / subscribers;
+
+        for (int i = 0; i < events; i++) {
+            KudosDTO kudos = kudos();
+            publishedAt.put(kudos.getId(), System.nanoTime());
+            stream.publish(kudos);
+            Thread.sleep(20);
+        }
+
+        assertThat(done.await(1, TimeUnit.MINUTES)).isTrue();
+        Arrays.sort(latencies);
+        log.info("kudos stream: {} subscribers, ~{} bytes each, delivery p50 {} us, p99 {} us, max {} us",
+                subscribers, bytesPerSubscriber,
+                TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length * 99 / 100]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]));
+        assertThat(stream.subscriberCount()).isEqualTo(subscribers);
+    }
+
+    @Test
+    void slowSubscriberIsEvictedWithoutHoldingBackOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink() {
+            @Override
+            public void send(KudosDTO kudos) throws IOException {
+                awaitQuietly(release);
+                super.send(kudos);
+            }
+        };
+        RecordingSink fast = new RecordingSink();
+        stream.register(slow, null);
+        stream.register(fast, null);
+
+        // Paced so only the blocked subscriber falls behind
+        int events = QUEUE_CAPACITY + 2;
+        for (int i = 0; i < events; i++) {
+            stream.publish(kudos());
+            awaitSize(fast.received, i + 1);
+        }
+        release.countDown();
+
+        assertThat(slow.closed).isTrue();
+        assertThat(fast.closed).isFalse();
+        assertThat(stream.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictingAStuckSubscriberFreesItsDeliveryThread() throws Exception {
+        KudosStream singleThreaded = new KudosStream(new RecentKudosFeed(500), QUEUE_CAPACITY, 1, 60_000, false);
+        try {
+            // A socket that never drains: the send returns only when its thread is interrupted
+            RecordingSink stuck = new RecordingSink() {
+                @Override
+                public void send(KudosDTO kudos) throws IOException {
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException("send interrupted");
+                    }
+                }
+            };
+            singleThreaded.register(stuck, null);
+            for (int i = 0; i < QUEUE_CAPACITY + 2; i++) {
+                singleThreaded.publish(kudos());
+            }
+            assertThat(stuck.closed).isTrue();
+
+            RecordingSink next = new RecordingSink();
+            singleThreaded.register(next, null);
+            singleThreaded.publish(kudos());
+            awaitSize(next.received, 1);
+            assertThat(singleThreaded.subscriberCount()).isEqualTo(1);
+        } finally {
+            singleThreaded.shutdown();
+        }
+    }
+
+    @Test
+    void resumesFromLastEventId() throws Exception {
+        List<KudosDTO> published = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            KudosDTO kudos = kudos();
+            published.add(kudos);
+            stream.publish(kudos);
+        }
+
+        RecordingSink resumed = new RecordingSink();
+        stream.register(resumed, published.get(1).getId());
+        KudosDTO live = kudos();
+        stream.publish(live);
+
+        awaitSize(resumed.received, 4);
+        assertThat(resumed.received).extracting(KudosDTO::getId).containsExactly(
+                published.get(2).getId(), published.get(3).getId(), published.get(4).getId(), live.getId());
+    }
+
+    private KudosDTO kudos() {
+        return KudosDTO.builder()
+                .id(nextId++)
+                .amount(1)
+                .message("stream")
+                .createdAt(LocalDateTime.now())
+                .isStreakBonus(false)
+                .build();
+    }
+
+    private static void awaitSize(List<?> list, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (list.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(list).hasSize(expected);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class RecordingSink implements KudosStream.Sink {
+
+        final List<KudosDTO> received = new CopyOnWriteArrayList<>();
+        volatile boolean closed;
+
+        @Override
+        public void send(KudosDTO kudos) throws IOException {
+            received.add(kudos);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package me.gaga.employeehubapi.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import me.gaga.employeehubapi.dto.kudos.SendKudosRequest;
+import me.gaga.employeehubapi.entity.Kudos;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.exception.BadRequestException;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class KudosTransferStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(KudosTransferStressTest.class);
+
+    private static final int USERS = 8;
+    private static final int INITIAL_BALANCE = 1_000_000;
+    private static final int THREADS = 16;
+    private static final int SENDS = 256;
+    private static final int BENCHMARK_SENDS = 512;
+
+    @Autowired
+    private KudosService kudosService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private KudosRepository kudosRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentTransfersLoseNoUpdates() throws Exception {
+        List<User> users = createUsers(USERS, INITIAL_BALANCE);
+        AtomicLong debited = new AtomicLong();
+        AtomicInteger succeeded = new AtomicInteger();
+
+        runConcurrently(THREADS, SENDS, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            User sender = users.get(random.nextInt(users.size()));
+            User receiver = users.get(random.nextInt(users.size()));
+            if (sender.getId().equals(receiver.getId())) {
+                return;
+            }
+            int amount = random.nextInt(1, 10);
+            send(sender, receiver, amount);
+            debited.addAndGet(amount);
+            succeeded.incrementAndGet();
+        });
+
+        List<User> reloaded = userRepository.findAllById(users.stream().map(User::getId).toList());
+        long balances = reloaded.stream().mapToLong(User::getKudosBalance).sum();
+        long received = reloaded.stream().mapToLong(User::getKudosReceived).sum();
+        List<Kudos> sent = users.stream().flatMap(u -> kudosRepository.findBySender(u).stream()).toList();
+
+        assertThat(balances).isEqualTo((long) USERS * INITIAL_BALANCE - debited.get());
+        assertThat(received).isEqualTo(sent.stream().mapToLong(Kudos::getAmount).sum());
+        assertThat(sent).hasSize(succeeded.get());
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void transferThroughputByThreadCount() throws Exception {
+        for (int threads : new int[]{1, 8, 64}) {
+            List<User> users = createUsers(USERS, INITIAL_BALANCE);
+            AtomicInteger succeeded = new AtomicInteger();
+
+            long elapsed = runConcurrently(threads, BENCHMARK_SENDS, () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                User sender = users.get(random.nextInt(users.size()));
+                User receiver = users.get(random.nextInt(users.size()));
+                if (!sender.getId().equals(receiver.getId())) {
+                    send(sender, receiver, random.nextInt(1, 10));
+                    succeeded.incrementAndGet();
+                }
+            });
+
+            log.info("kudos transfer: {} threads, {} sends in {} ms ({} sends/sec)", threads, succeeded.get(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(succeeded.get() / (elapsed / 1_000_000_000.0)));
+        }
+    }
+
+    @Test
+    void concurrentTransfersNeverOverdraw() throws Exception {
+        List<User> users = createUsers(2, 50);
+        User sender = users.get(0);
+        User receiver = users.get(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(64, 128, () -> {
+            try {
+                send(sender, receiver, 1);
+                succeeded.incrementAndGet();
+            } catch (BadRequestException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(succeeded.get()).isEqualTo(50);
+        assertThat(rejected.get()).isEqualTo(78);
+        assertThat(userRepository.findById(sender.getId()).orElseThrow().getKudosBalance()).isZero();
+    }
+
+    @Test
+    void streakExtendsOnSameDaySends() {
+        List<User> users = createUsers(2, 100);
+
+        send(users.get(0), users.get(1), 10);
+        send(users.get(0), users.get(1), 10);
+
+        List<Kudos> sent = kudosRepository.findBySender(users.get(0)).stream()
+                .sorted(Comparator.comparing(Kudos::getId))
+                .toList();
+        assertThat(sent).extracting(Kudos::getIsStreakBonus).containsExactly(false, true);
+        assertThat(sent).extracting(Kudos::getAmount).containsExactly(10, 11);
+        User sender = userRepository.findById(users.get(0).getId()).orElseThrow();
+        assertThat(sender.getStreakCount()).isEqualTo(2);
+        assertThat(sender.getLastKudosSentOn()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    void sendStatementsDoNotGrowWithHistory() {
+        List<User> users = createUsers(2, INITIAL_BALANCE);
+        User sender = users.get(0);
+        User receiver = users.get(1);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        send(sender, receiver, 1);
+
+        List<Long> statementsPerSend = new ArrayList<>();
+        for (int history : new int[]{10, 500}) {
+            List<Kudos> earlier = new ArrayList<>();
+            for (int i = 0; i < history; i++) {
+                earlier.add(Kudos.builder().sender(sender).receiver(receiver).amount(1).message("history").build());
+            }
+            kudosRepository.saveAll(earlier);
+
+            statistics.clear();
+            send(sender, receiver, 1);
+            statementsPerSend.add(statistics.getPrepareStatementCount());
+        }
+
+        // The streak comes from the sender's row, not from reading back what they sent today
+        assertThat(statementsPerSend.get(1)).isEqualTo(statementsPerSend.get(0));
+        assertThat(userRepository.findById(sender.getId()).orElseThrow().getStreakCount()).isEqualTo(3);
+    }
+
+    private void send(User sender, User receiver, int amount) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(sender, null, sender.getAuthorities()));
+        kudosService.sendKudos(SendKudosRequest.builder()
+                .receiverId(receiver.getId())
+                .amount(amount)
+                .message("stress")
+                .build());
+    }
+
+    // Returns wall-clock nanoseconds from the start signal until every task has finished
+    private long runConcurrently(int threads, int tasks, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    task.run();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private List<User> createUsers(int count, int balance) {
+        String run = UUID.randomUUID().toString();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(userRepository.save(User.builder()
+                    .name("Stress User " + i)
+                    .email("stress-" + i + "-" + run + "@employeehub.com")
+                    .password("{noop}password")
+                    .role(Role.USER)
+                    .kudosBalance(balance)
+                    .kudosReceived(0)
+                    .streakCount(0)
+                    .enabled(true)
+                    .build()));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,241 @@
+package me.gaga.employeehubapi.service;
+
+import me.gaga.employeehubapi.RecordedStatements;
+import me.gaga.employeehubapi.dto.project.CreateProjectRequest;
+import me.gaga.employeehubapi.dto.project.ProjectDTO;
+import me.gaga.employeehubapi.dto.project.ProjectSummaryDTO;
+import me.gaga.employeehubapi.dto.project.UpdateProjectRequest;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.ProjectRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.CurrentUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "projects.membership-index.enabled=true")
+class MyProjectsTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MyProjectsTest.class);
+
+    private static final int MY_PROJECTS = 20;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private ProjectMembershipIndex membershipIndex;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUser currentUser;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void workFollowsMembershipsNotProjectCount() {
+        List<Long> others = createUsers(50).stream().map(User::getId).toList();
+        User me = authenticate();
+        // The same service without the in-memory index, so both paths run against the same data
+        ProjectService withoutIndex = new ProjectService(projectRepository, userRepository, currentUser,
+                new ProjectMembershipIndex(projectRepository, false), new UserDtoMapper());
+
+        List<Long> mine = insertProjects(MY_PROJECTS, me.getId(), others);
+        insertProjects(1_000 - MY_PROJECTS, null, others);
+        membershipIndex.reload();
+        List<String> indexed = RecordedStatements.during(projectService::listMyProjects);
+        List<String> queried = RecordedStatements.during(withoutIndex::listMyProjects);
+
+        insertProjects(5_000, null, others);
+        membershipIndex.reload();
+
+        assertThat(projectService.listMyProjects()).extracting(ProjectSummaryDTO::getId).isEqualTo(mine);
+        assertThat(withoutIndex.listMyProjects()).extracting(ProjectSummaryDTO::getId).isEqualTo(mine);
+        // 6x the projects, the same statements: the index path reads by primary key, the query path by member
+        assertThat(RecordedStatements.during(projectService::listMyProjects)).isEqualTo(indexed);
+        assertThat(RecordedStatements.during(withoutIndex::listMyProjects)).isEqualTo(queried);
+        assertThat(jdbcTemplate.queryForList("EXPLAIN SELECT project_id FROM project_members WHERE user_id = ?",
+                String.class, me.getId()).get(0)).containsIgnoringCase("idx_project_members_user_project");
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void latencyFollowsMembershipsNotProjectCount() {
+        List<Long> others = createUsers(50).stream().map(User::getId).toList();
+        User me = authenticate();
+        ProjectService withoutIndex = new ProjectService(projectRepository, userRepository, currentUser,
+                new ProjectMembershipIndex(projectRepository, false), new UserDtoMapper());
+
+        insertProjects(MY_PROJECTS, me.getId(), others);
+        insertProjects(1_000 - MY_PROJECTS, null, others);
+        membershipIndex.reload();
+        // Warm both paths first; whichever is measured first would otherwise pay for the JIT
+        median(projectService::listMyProjects);
+        median(withoutIndex::listMyProjects);
+        long[] small = {median(projectService::listMyProjects), median(withoutIndex::listMyProjects)};
+
+        insertProjects(50_000, null, others);
+        membershipIndex.reload();
+        long[] large = {median(projectService::listMyProjects), median(withoutIndex::listMyProjects)};
+
+        log.info("my projects ({} memberships): 1000 projects index {} us, query {} us; 51000 projects index {} us, query {} us",
+                MY_PROJECTS, small[0] / 1_000, small[1] / 1_000, large[0] / 1_000, large[1] / 1_000);
+        // 51x the projects; a scan would be tens of times slower, an index walk stays within noise
+        assertThat(large[0]).isLessThan(small[0] * 4 + 2_000_000);
+        assertThat(large[1]).isLessThan(small[1] * 4 + 2_000_000);
+    }
+
+    @Test
+    void indexFollowsCreateUpdateAndDelete() {
+        List<Long> others = createUsers(2).stream().map(User::getId).toList();
+        User me = authenticate();
+
+        ProjectDTO created = projectService.createProject(CreateProjectRequest.builder()
+                .name("Mine")
+                .memberIds(Set.of(me.getId(), others.get(0)))
+                .build());
+        assertThat(membershipIndex.projectsOf(me.getId())).containsExactly(created.getId());
+        assertThat(membershipIndex.projectsOf(others.get(0))).containsExactly(created.getId());
+
+        projectService.updateProject(created.getId(), UpdateProjectRequest.builder()
+                .name("Mine")
+                .memberIds(Set.of(others.get(1)))
+                .build());
+        assertThat(membershipIndex.projectsOf(me.getId())).isEmpty();
+        assertThat(membershipIndex.projectsOf(others.get(0))).isEmpty();
+        assertThat(membershipIndex.projectsOf(others.get(1))).containsExactly(created.getId());
+        assertThat(projectService.listMyProjects()).isEmpty();
+
+        projectService.deleteProject(created.getId());
+        assertThat(membershipIndex.projectsOf(others.get(1))).isEmpty();
+    }
+
+    @Test
+    void changesCommittedDuringAReloadAreKept() {
+        ProjectRepository repository = mock(ProjectRepository.class);
+        ProjectMembershipIndex index = new ProjectMembershipIndex(repository, true);
+        when(repository.streamMemberships()).thenAnswer(invocation -> {
+            // Project 1 gains user 8 after the stream read it, project 2 is deleted before the stream reads it
+            index.put(1L, List.of(7L, 8L));
+            index.remove(2L);
+            return Stream.of(membership(1L, 7L));
+        });
+
+        index.reload();
+
+        assertThat(index.projectsOf(7L)).containsExactly(1L);
+        assertThat(index.projectsOf(8L)).containsExactly(1L);
+        assertThat(index.projectsOf(9L)).isEmpty();
+
+        // Once the reload is over, changes are no longer recorded for it
+        when(repository.streamMemberships()).thenAnswer(invocation -> Stream.of(membership(3L, 9L)));
+        index.reload();
+        assertThat(index.projectsOf(8L)).isEmpty();
+        assertThat(index.projectsOf(9L)).containsExactly(3L);
+    }
+
+    private ProjectRepository.Membership membership(Long projectId, Long userId) {
+        ProjectRepository.Membership row = mock(ProjectRepository.Membership.class);
+        when(row.getProjectId()).thenReturn(projectId);
+        when(row.getUserId()).thenReturn(userId);
+        return row;
+    }
+
+    private User authenticate() {
+        User me = createUsers(1).get(0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(me, null, me.getAuthorities()));
+        return me;
+    }
+
+    // Each project gets three members from `others`, plus `member` when given; returns the new ids in order
+    private List<Long> insertProjects(int count, Long member, List<Long> others) {
+        String prefix = "mine-" + UUID.randomUUID();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO projects (name, description, created_at, owner_id) VALUES (?, ?, ?, ?)",
+                IntStream.range(0, count)
+                        .mapToObj(i -> new Object[]{prefix + "-" + i, null, now, others.get(i % others.size())})
+                        .toList());
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM projects WHERE name LIKE ? ORDER BY id", Long.class, prefix + "-%");
+
+        List<Object[]> memberships = new ArrayList<>();
+        for (int p = 0; p < ids.size(); p++) {
+            for (int m = 0; m < 3; m++) {
+                memberships.add(new Object[]{ids.get(p), others.get((p + m) % others.size())});
+            }
+            if (member != null) {
+                memberships.add(new Object[]{ids.get(p), member});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO project_members (project_id, user_id) VALUES (?, ?)", memberships);
+        return ids;
+    }
+
+    private static long median(Supplier<List<ProjectSummaryDTO>> call) {
+        for (int i = 0; i < 200; i++) {
+            call.get();
+        }
+        long[] samples = new long[101];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            call.get();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .name("Member " + i)
+                    .email("mine-" + UUID.randomUUID() + "@employeehub.com")
+                    .password("{noop}password")
+                    .role(Role.USER)
+                    .avatarUrl("https://avatars.employeehub.com/" + i + ".png")
+                    .kudosBalance(100)
+                    .kudosReceived(0)
+                    .streakCount(0)
+                    .enabled(true)
+                    .build());
+        }
+        return userRepository.saveAll(users);
+    }
+}
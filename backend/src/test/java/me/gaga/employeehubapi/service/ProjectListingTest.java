@@ -0,0 +1,228 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import me.gaga.employeehubapi.dto.project.ProjectSummaryDTO;
+import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.JwtTokenUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProjectListingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectListingTest.class);
+
+    private static final int PROJECTS = 200;
+    private static final int MEMBERS_PER_PROJECT = 100;
+    private static final int USERS = 500;
+    private static final int BENCHMARK_PROJECTS = 1_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Long> userIds;
+    private String token;
+    private Long projectId;
+
+    @BeforeAll
+    void seed() {
+        String prefix = "listing-" + UUID.randomUUID();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(User.builder()
+                    .name("Member " + i)
+                    .email(prefix + "-" + i + "@employeehub.com")
+                    .password("{noop}password")
+                    .role(Role.USER)
+                    .avatarUrl("https://avatars.employeehub.com/" + i + ".png")
+                    .kudosBalance(100)
+                    .kudosReceived(0)
+                    .streakCount(0)
+                    .enabled(true)
+                    .build());
+        }
+        userIds = userRepository.saveAll(users).stream().map(User::getId).toList();
+        token = jwtTokenUtil.generateToken(users.get(0));
+        projectId = seedProjects(prefix, PROJECTS);
+    }
+
+    // Returns the id of the first project seeded
+    private Long seedProjects(String prefix, int count) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO projects (name, description, created_at, owner_id) VALUES (?, ?, ?, ?)",
+                IntStream.range(0, count)
+                        .mapToObj(i -> new Object[]{prefix + "-" + i, "Benchmark project " + i, now, userIds.get(i % USERS)})
+                        .toList());
+        List<Long> projectIds = jdbcTemplate.queryForList(
+                "SELECT id FROM projects WHERE name LIKE ? ORDER BY id", Long.class, prefix + "-%");
+
+        List<Object[]> memberships = new ArrayList<>();
+        for (int p = 0; p < projectIds.size(); p++) {
+            for (int m = 0; m < MEMBERS_PER_PROJECT; m++) {
+                memberships.add(new Object[]{projectIds.get(p), userIds.get((p + m * 7) % USERS)});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO project_members (project_id, user_id) VALUES (?, ?)", memberships);
+        return projectIds.get(0);
+    }
+
+    @Test
+    void summariesAndMemberPagesStayLightAtScale() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        MockHttpServletResponse legacy = perform("/projects/");
+
+        statistics.clear();
+        MockHttpServletResponse firstPage = perform("/projects/summaries?page=0&size=50");
+        long pageStatements = statistics.getPrepareStatementCount();
+
+        long allPagesBytes = 0;
+        for (int page = 0; ; page++) {
+            MockHttpServletResponse response = perform("/projects/summaries?page=" + page + "&size=100");
+            List<ProjectSummaryDTO> rows = objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<>() { });
+            allPagesBytes += response.getContentAsByteArray().length;
+            if (rows.size() < 100) {
+                break;
+            }
+        }
+
+        List<ProjectSummaryDTO> page = objectMapper.readValue(firstPage.getContentAsByteArray(), new TypeReference<>() { });
+        ProjectSummaryDTO seeded = page.stream().filter(summary -> summary.getId().equals(projectId)).findFirst()
+                .orElseGet(() -> findSummary(projectId));
+        assertThat(seeded.getMemberCount()).isEqualTo(MEMBERS_PER_PROJECT);
+        assertThat(seeded.getMemberAvatars()).hasSize(5);
+        assertThat(pageStatements).isEqualTo(2);
+        assertThat(allPagesBytes * 10).isLessThan(legacy.getContentAsByteArray().length);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void fullListAgainstSummaryPages() throws Exception {
+        // Tops the class's seed up to the benchmark size
+        seedProjects("listing-benchmark-" + UUID.randomUUID(), BENCHMARK_PROJECTS - PROJECTS);
+
+        perform("/projects/");
+        long start = System.nanoTime();
+        MockHttpServletResponse legacy = perform("/projects/");
+        long legacyMs = (System.nanoTime() - start) / 1_000_000;
+
+        perform("/projects/summaries?page=0&size=50");
+        start = System.nanoTime();
+        MockHttpServletResponse firstPage = perform("/projects/summaries?page=0&size=50");
+        long pageMicros = (System.nanoTime() - start) / 1_000;
+
+        long allPagesBytes = 0;
+        int summaries = 0;
+        start = System.nanoTime();
+        for (int page = 0; ; page++) {
+            MockHttpServletResponse response = perform("/projects/summaries?page=" + page + "&size=100");
+            List<ProjectSummaryDTO> rows = objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<>() { });
+            allPagesBytes += response.getContentAsByteArray().length;
+            summaries += rows.size();
+            if (rows.size() < 100) {
+                break;
+            }
+        }
+        long allPagesMs = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("project listing ({} projects x {} members): full list {} KB in {} ms; summary page of 50 {} KB in {} us; "
+                        + "all summaries {} KB in {} ms",
+                summaries, MEMBERS_PER_PROJECT, legacy.getContentAsByteArray().length / 1024, legacyMs,
+                firstPage.getContentAsByteArray().length / 1024, pageMicros, allPagesBytes / 1024, allPagesMs);
+        assertThat(allPagesBytes * 10).isLessThan(legacy.getContentAsByteArray().length);
+    }
+
+    @Test
+    void membersArePagedByKeyset() throws Exception {
+        Set<Long> seen = new HashSet<>();
+        Long after = null;
+        int pages = 0;
+        while (true) {
+            String url = "/projects/" + projectId + "/members?limit=30" + (after != null ? "&after=" + after : "");
+            List<UserDTO> members = objectMapper.readValue(perform(url).getContentAsByteArray(), new TypeReference<>() { });
+            if (members.isEmpty()) {
+                break;
+            }
+            pages++;
+            for (UserDTO member : members) {
+                assertThat(after == null || member.getId() > after).isTrue();
+                assertThat(seen.add(member.getId())).isTrue();
+                after = member.getId();
+            }
+        }
+
+        assertThat(seen).hasSize(MEMBERS_PER_PROJECT);
+        assertThat(pages).isEqualTo(4);
+        assertThat(perform("/projects/999999/members").getStatus()).isEqualTo(404);
+    }
+
+    private ProjectSummaryDTO findSummary(Long id) {
+        try {
+            for (int page = 0; ; page++) {
+                List<ProjectSummaryDTO> rows = objectMapper.readValue(
+                        perform("/projects/summaries?page=" + page + "&size=100").getContentAsByteArray(), new TypeReference<>() { });
+                for (ProjectSummaryDTO row : rows) {
+                    if (row.getId().equals(id)) {
+                        return row;
+                    }
+                }
+                if (rows.size() < 100) {
+                    throw new AssertionError("Project " + id + " not listed");
+                }
+            }
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private MockHttpServletResponse perform(String url) throws Exception {
+        return mockMvc.perform(get(url).header("Authorization", "Bearer " + token)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,112 @@
+package me.gaga.employeehubapi.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import me.gaga.employeehubapi.dto.project.CreateProjectRequest;
+import me.gaga.employeehubapi.dto.project.ProjectDTO;
+import me.gaga.employeehubapi.dto.project.UpdateProjectRequest;
+import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.exception.ResourceNotFoundException;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ProjectMembershipTest {
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+
+    @BeforeEach
+    void authenticate() {
+        owner = createUsers(1).get(0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void largeMembershipUpdateWritesOnlyTheDifference() {
+        List<Long> ids = createUsers(550).stream().map(User::getId).toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        ProjectDTO created = projectService.createProject(CreateProjectRequest.builder()
+                .name("Big project")
+                .memberIds(new HashSet<>(ids.subList(0, 500)))
+                .build());
+        long createStatements = statistics.getPrepareStatementCount();
+
+        // Swap 50 members out and 50 new ones in
+        Set<Long> updatedIds = new HashSet<>(ids.subList(50, 550));
+        statistics.clear();
+        ProjectDTO updated = projectService.updateProject(created.getId(), UpdateProjectRequest.builder()
+                .name("Big project")
+                .memberIds(updatedIds)
+                .build());
+        long updateStatements = statistics.getPrepareStatementCount();
+
+        assertThat(updated.getMembers().stream().map(UserDTO::getId).collect(Collectors.toSet())).isEqualTo(updatedIds);
+        assertThat(createStatements).isLessThan(20);
+        assertThat(updateStatements).isLessThan(10);
+    }
+
+    @Test
+    void everyMissingMemberIsReported() {
+        Long existing = createUsers(1).get(0).getId();
+
+        assertThatThrownBy(() -> projectService.createProject(CreateProjectRequest.builder()
+                .name("Broken project")
+                .memberIds(Set.of(existing, 999_998L, 999_999L))
+                .build()))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("[999998, 999999]");
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .name("Member " + i)
+                    .email("member-" + UUID.randomUUID() + "@employeehub.com")
+                    .password("{noop}password")
+                    .role(Role.USER)
+                    .kudosBalance(100)
+                    .kudosReceived(0)
+                    .streakCount(0)
+                    .enabled(true)
+                    .build());
+        }
+        return userRepository.saveAll(users);
+    }
+}
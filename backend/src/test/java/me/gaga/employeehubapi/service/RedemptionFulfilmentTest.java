@@ -0,0 +1,231 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.gaga.employeehubapi.dto.reward.RewardRedemptionDTO;
+import me.gaga.employeehubapi.entity.Reward;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.RewardRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.JwtTokenUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RedemptionFulfilmentTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RedemptionFulfilmentTest.class);
+
+    // More than one round of batch-size x workers, so the drain has to loop
+    private static final int REDEMPTIONS = 2_500;
+    private static final int USERS = 50;
+    // Every hundredth redemption is of a reward that was withdrawn afterwards
+    private static final int WITHDRAWN_EVERY = 100;
+    private static final int BENCHMARK_REDEMPTIONS = 100_000;
+    private static final int BENCHMARK_USERS = 200;
+
+    @Autowired
+    private RedemptionFulfilment redemptionFulfilment;
+
+    @Autowired
+    private RewardRepository rewardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void pendingQueueDrainsWithRefundsForFailures() {
+        Reward available = rewardRepository.save(Reward.builder().name("Queued sticker").kudosCost(10).build());
+        Reward withdrawn = rewardRepository.save(Reward.builder().name("Withdrawn voucher").kudosCost(25).stock(5)
+                .isActive(false).build());
+        List<User> users = createUsers(USERS, Role.USER);
+
+        queuePending(REDEMPTIONS, users, available, withdrawn);
+
+        // The scheduled poll may have picked the queue up already; either way this returns once it is empty
+        redemptionFulfilment.drain();
+
+        Map<String, Integer> statuses = statusCounts(available, withdrawn);
+        int failures = REDEMPTIONS / WITHDRAWN_EVERY;
+
+        assertThat(statuses).containsOnlyKeys("FULFILLED", "FAILED");
+        assertThat(statuses.get("FULFILLED")).isEqualTo(REDEMPTIONS - failures);
+        assertThat(statuses.get("FAILED")).isEqualTo(failures);
+        long refunded = userRepository.findAllById(users.stream().map(User::getId).toList()).stream()
+                .mapToLong(User::getKudosBalance).sum();
+        assertThat(refunded).isEqualTo((long) failures * withdrawn.getKudosCost());
+        assertThat(rewardRepository.findById(withdrawn.getId()).orElseThrow().getStock()).isEqualTo(5 + failures);
+        assertThat(redemptionFulfilment.drain()).isZero();
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void drainThroughput() {
+        Reward available = rewardRepository.save(Reward.builder().name("Queued sticker").kudosCost(10).build());
+        Reward withdrawn = rewardRepository.save(Reward.builder().name("Withdrawn voucher").kudosCost(25).stock(5)
+                .isActive(false).build());
+        List<User> users = createUsers(BENCHMARK_USERS, Role.USER);
+        queuePending(BENCHMARK_REDEMPTIONS, users, available, withdrawn);
+
+        long begin = System.nanoTime();
+        redemptionFulfilment.drain();
+        long elapsed = System.nanoTime() - begin;
+
+        Map<String, Integer> statuses = statusCounts(available, withdrawn);
+        log.info("reward fulfilment: drained {} pending redemptions in {} ms ({} redemptions/sec), {} fulfilled, {} failed and refunded",
+                BENCHMARK_REDEMPTIONS, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                Math.round(BENCHMARK_REDEMPTIONS / (elapsed / 1_000_000_000.0)),
+                statuses.getOrDefault("FULFILLED", 0), statuses.getOrDefault("FAILED", 0));
+        assertThat(statuses).containsOnlyKeys("FULFILLED", "FAILED");
+    }
+
+    @Test
+    void historyPagesByKeysetNewestFirst() throws Exception {
+        Reward reward = rewardRepository.save(Reward.builder().name("History mug").kudosCost(5).build());
+        User owner = createUsers(1, Role.USER).get(0);
+        User other = createUsers(1, Role.USER).get(0);
+        User admin = createUsers(1, Role.ADMIN).get(0);
+        LocalDateTime start = LocalDateTime.of(2019, 6, 1, 12, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            // Pairs share a timestamp, so the id has to break ties in the cursor
+            rows.add(new Object[]{owner.getId(), reward.getId(), start.plusMinutes(i / 2), i % 3 == 0 ? "FAILED" : "FULFILLED"});
+        }
+        rows.add(new Object[]{other.getId(), reward.getId(), start, "FAILED"});
+        jdbcTemplate.batchUpdate("INSERT INTO reward_redemptions (user_id, reward_id, kudos_cost, redeemed_at, status) "
+                + "VALUES (?, ?, 5, ?, ?)", rows);
+        String ownerToken = jwtTokenUtil.generateToken(owner);
+
+        List<RewardRedemptionDTO> all = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            List<RewardRedemptionDTO> page = read(perform("/rewards/redemptions?limit=20"
+                    + (cursor != null ? "&before=" + cursor : ""), ownerToken));
+            pageSizes.add(page.size());
+            all.addAll(page);
+            RewardRedemptionDTO last = page.isEmpty() ? null : page.get(page.size() - 1);
+            cursor = page.size() < 20 ? null : last.getRedeemedAt() + "," + last.getId();
+        } while (cursor != null);
+
+        assertThat(pageSizes).containsExactly(20, 20, 5);
+        Set<Long> ids = new HashSet<>();
+        all.forEach(redemption -> ids.add(redemption.getId()));
+        assertThat(ids).hasSize(45);
+        for (int i = 1; i < all.size(); i++) {
+            RewardRedemptionDTO newer = all.get(i - 1);
+            RewardRedemptionDTO older = all.get(i);
+            assertThat(newer.getRedeemedAt().isAfter(older.getRedeemedAt())
+                    || newer.getRedeemedAt().equals(older.getRedeemedAt()) && newer.getId() > older.getId()).isTrue();
+        }
+        assertThat(all.get(0).getReward().getName()).isEqualTo("History mug");
+        assertThat(all.get(0).getUser().getId()).isEqualTo(owner.getId());
+
+        assertThat(read(perform("/rewards/redemptions?status=failed&limit=100", ownerToken)))
+                .hasSize(15).extracting(RewardRedemptionDTO::getStatus).containsOnly("FAILED");
+        // Upper-casing "failed" by the Turkish rules gives "FAİLED"
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            assertThat(read(perform("/rewards/redemptions?status=failed&limit=100", ownerToken))).hasSize(15);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+        assertThat(perform("/rewards/redemptions?userId=" + other.getId(), ownerToken).getStatus()).isEqualTo(403);
+        assertThat(perform("/rewards/redemptions?status=LOST", ownerToken).getStatus()).isEqualTo(400);
+
+        String adminToken = jwtTokenUtil.generateToken(admin);
+        assertThat(read(perform("/rewards/redemptions?userId=" + other.getId(), adminToken))).hasSize(1);
+        assertThat(read(perform("/rewards/redemptions?status=FAILED&limit=100&before=2019-06-01T12:00:01,"
+                + Long.MAX_VALUE, adminToken)))
+                .extracting(redemption -> redemption.getUser().getId()).contains(owner.getId(), other.getId());
+    }
+
+    private MockHttpServletResponse perform(String url, String token) throws Exception {
+        return mockMvc.perform(get(url).header("Authorization", "Bearer " + token)).andReturn().getResponse();
+    }
+
+    private List<RewardRedemptionDTO> read(MockHttpServletResponse response) throws Exception {
+        assertThat(response.getStatus()).isEqualTo(200);
+        return objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<>() { });
+    }
+
+    private void queuePending(int count, List<User> users, Reward available, Reward withdrawn) {
+        List<Object[]> rows = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2019, 3, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            Reward reward = i % WITHDRAWN_EVERY == 0 ? withdrawn : available;
+            rows.add(new Object[]{users.get(i % users.size()).getId(), reward.getId(), reward.getKudosCost(),
+                    start.plusSeconds(i), "PENDING"});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "INSERT INTO reward_redemptions (user_id, reward_id, kudos_cost, redeemed_at, status) VALUES (?, ?, ?, ?, ?)",
+                rows));
+    }
+
+    private Map<String, Integer> statusCounts(Reward available, Reward withdrawn) {
+        return jdbcTemplate.queryForList(
+                        "SELECT status, COUNT(*) AS n FROM reward_redemptions WHERE reward_id IN (?, ?) GROUP BY status",
+                        available.getId(), withdrawn.getId()).stream()
+                .collect(Collectors.toMap(row -> (String) row.get("status"), row -> ((Number) row.get("n")).intValue()));
+    }
+
+    private List<User> createUsers(int count, Role role) {
+        String run = UUID.randomUUID().toString();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .name("Redeemer " + i)
+                    .email("redeemer-" + i + "-" + run + "@employeehub.com")
+                    .password("{noop}password")
+                    .role(role)
+                    .kudosBalance(0)
+                    .kudosReceived(0)
+                    .streakCount(0)
+                    .enabled(true)
+                    .build());
+        }
+        return userRepository.saveAll(users);
+    }
+}
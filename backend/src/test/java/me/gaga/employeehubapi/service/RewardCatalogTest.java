@@ -0,0 +1,239 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import me.gaga.employeehubapi.dto.reward.RewardDTO;
+import me.gaga.employeehubapi.entity.Reward;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.RewardRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.JwtTokenUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RewardCatalogTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RewardCatalogTest.class);
+
+    private static final int REWARDS = 60;
+    private static final int REQUESTS = 3_000;
+
+    @Autowired
+    private RewardCatalog rewardCatalog;
+
+    @Autowired
+    private RewardRepository rewardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void catalogIsServedFromSnapshotWithEtags() throws Exception {
+        createRewards();
+        rewardCatalog.reload();
+        String token = jwtTokenUtil.generateToken(createUser());
+
+        MockHttpServletResponse full = perform(get("/rewards/"), token);
+        assertThat(full.getStatus()).isEqualTo(200);
+        String etag = full.getHeader("ETag");
+        assertThat(etag).startsWith("\"");
+        assertThat(read(full.getContentAsByteArray())).isEqualTo(fromDatabase(null));
+
+        MockHttpServletResponse revalidated = perform(get("/rewards/").header("If-None-Match", etag), token);
+        assertThat(revalidated.getStatus()).isEqualTo(304);
+        assertThat(revalidated.getContentLength()).isZero();
+
+        MockHttpServletResponse affordable = perform(get("/rewards/?maxCost=250"), token);
+        assertThat(read(affordable.getContentAsByteArray())).isEqualTo(fromDatabase(250));
+        assertThat(affordable.getHeader("ETag")).isNotEqualTo(etag);
+        assertThat(read(perform(get("/rewards/?maxCost=0"), token).getContentAsByteArray())).isEmpty();
+
+        // A redeem that takes stock changes the catalog, so the old ETag stops matching
+        Reward stocked = rewardRepository.save(Reward.builder().name("Catalog hoodie").kudosCost(15).stock(3).build());
+        rewardCatalog.reload();
+        String beforeRedeem = perform(get("/rewards/"), token).getHeader("ETag");
+        assertThat(perform(post("/rewards/" + stocked.getId() + "/redeem"), token).getStatus()).isEqualTo(200);
+        MockHttpServletResponse afterRedeem = perform(get("/rewards/").header("If-None-Match", beforeRedeem), token);
+        assertThat(afterRedeem.getStatus()).isEqualTo(200);
+        assertThat(read(afterRedeem.getContentAsByteArray()))
+                .filteredOn(reward -> reward.getId().equals(stocked.getId()))
+                .extracting(RewardDTO::getStock).containsExactly(2);
+    }
+
+    @Test
+    void stockChangesArePatchedInWithoutReloading() throws Exception {
+        Reward stocked = rewardRepository.save(Reward.builder().name("Patched mug").kudosCost(5).stock(10).build());
+        Reward unlimited = rewardRepository.save(Reward.builder().name("Patched sticker").kudosCost(5).build());
+        rewardCatalog.reload();
+        String token = jwtTokenUtil.generateToken(createUser());
+        String etag = rewardCatalog.list(null).etag();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < 3; i++) {
+            assertThat(perform(post("/rewards/" + stocked.getId() + "/redeem"), token).getStatus()).isEqualTo(200);
+        }
+        rewardCatalog.stockChanged(stocked.getId(), 1);
+        statistics.clear();
+        RewardCatalog.Page page = rewardCatalog.list(null);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(page.etag()).isNotEqualTo(etag);
+        assertThat(read(page.json()))
+                .filteredOn(reward -> reward.getId().equals(stocked.getId()) || reward.getId().equals(unlimited.getId()))
+                .extracting(RewardDTO::getId, RewardDTO::getStock)
+                .containsExactly(tuple(stocked.getId(), 8), tuple(unlimited.getId(), null));
+        assertThat(read(page.json())).isEqualTo(fromDatabase(null).stream()
+                .map(reward -> reward.getId().equals(stocked.getId()) ? withStock(reward, 8) : reward).toList());
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void catalogThroughput() throws Exception {
+        createRewards();
+        rewardCatalog.reload();
+        String token = jwtTokenUtil.generateToken(createUser());
+
+        // The handler work alone: query, map and serialize per request against a ready byte array
+        double queried = perSecond(() -> write(fromDatabase(null)));
+        double snapshot = perSecond(() -> rewardCatalog.list(null).json());
+        double filteredSnapshot = perSecond(() -> rewardCatalog.list(250).json());
+
+        MockHttpServletResponse first = perform(get("/rewards/"), token);
+        String etag = first.getHeader("ETag");
+        double fullRequests = 0;
+        double conditionalRequests = 0;
+        // Alternate the two so neither is measured before the request path has warmed up
+        for (int round = 0; round < 3; round++) {
+            fullRequests = Math.max(fullRequests, perSecond(() -> perform(get("/rewards/"), token)));
+            conditionalRequests = Math.max(conditionalRequests,
+                    perSecond(() -> perform(get("/rewards/").header("If-None-Match", etag), token)));
+        }
+        int conditionalBytes = perform(get("/rewards/").header("If-None-Match", etag), token).getContentAsByteArray().length;
+
+        log.info("reward catalog of {} rewards: handler {} -> {} req/s ({} req/s filtered by cost); "
+                        + "GET /rewards/ {} req/s with {} bytes, {} req/s with {} bytes on If-None-Match",
+                read(first.getContentAsByteArray()).size(), Math.round(queried), Math.round(snapshot),
+                Math.round(filteredSnapshot), Math.round(fullRequests), first.getContentAsByteArray().length,
+                Math.round(conditionalRequests), conditionalBytes);
+
+        assertThat(snapshot).isGreaterThan(queried);
+        assertThat(conditionalBytes).isZero();
+    }
+
+    // What the endpoint returned before the snapshot: every active reward, read and serialized per request
+    private List<RewardDTO> fromDatabase(Integer maxCost) {
+        List<Reward> rewards = maxCost == null
+                ? rewardRepository.findByIsActiveTrue()
+                : rewardRepository.findByKudosCostLessThanEqual(maxCost).stream()
+                        .filter(reward -> Boolean.TRUE.equals(reward.getIsActive())).toList();
+        return rewards.stream()
+                .sorted(Comparator.comparing(Reward::getKudosCost).thenComparing(Reward::getId))
+                .map(reward -> RewardDTO.builder()
+                        .id(reward.getId())
+                        .name(reward.getName())
+                        .description(reward.getDescription())
+                        .kudosCost(reward.getKudosCost())
+                        .imageUrl(reward.getImageUrl())
+                        .isActive(reward.getIsActive())
+                        .stock(reward.getStock())
+                        .build())
+                .toList();
+    }
+
+    private RewardDTO withStock(RewardDTO reward, int stock) {
+        reward.setStock(stock);
+        return reward;
+    }
+
+    private double perSecond(ThrowingSupplier call) throws Exception {
+        for (int i = 0; i < REQUESTS / 3; i++) {
+            call.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            call.get();
+        }
+        return REQUESTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private interface ThrowingSupplier {
+        Object get() throws Exception;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request, String token) throws Exception {
+        return mockMvc.perform(request.header("Authorization", "Bearer " + token)).andReturn().getResponse();
+    }
+
+    private List<RewardDTO> read(byte[] json) throws Exception {
+        return objectMapper.readValue(json, new TypeReference<>() { });
+    }
+
+    private byte[] write(Object value) throws Exception {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    private void createRewards() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<Reward> rewards = new ArrayList<>();
+        for (int i = 0; i < REWARDS; i++) {
+            rewards.add(Reward.builder()
+                    .name("Catalog item " + i + " " + run)
+                    .description("A reward worth saving up for, item " + i)
+                    .kudosCost(25 * (1 + (i * 7) % REWARDS))
+                    .imageUrl("https://rewards.employeehub.com/" + i + ".png")
+                    .isActive(i % 10 != 0)
+                    .build());
+        }
+        rewardRepository.saveAll(rewards);
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .name("Catalog Browser")
+                .email("catalog-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+}
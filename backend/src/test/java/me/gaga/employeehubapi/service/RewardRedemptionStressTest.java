@@ -0,0 +1,184 @@
+package me.gaga.employeehubapi.service;
+
+import me.gaga.employeehubapi.entity.Reward;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.exception.BadRequestException;
+import me.gaga.employeehubapi.exception.ConflictException;
+import me.gaga.employeehubapi.repository.RewardRedemptionRepository;
+import me.gaga.employeehubapi.repository.RewardRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RewardRedemptionStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RewardRedemptionStressTest.class);
+
+    private static final int BUYERS = 200;
+    private static final int STOCK = 20;
+    private static final int COST = 30;
+    private static final int BENCHMARK_BUYERS = 1_000;
+    private static final int BENCHMARK_STOCK = 50;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private RewardRepository rewardRepository;
+
+    @Autowired
+    private RewardRedemptionRepository rewardRedemptionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void flashSaleSellsExactlyTheStock() throws Exception {
+        Reward reward = createReward(STOCK);
+        List<User> buyers = createUsers(BUYERS, 100);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+
+        runConcurrently(16, buyers, buyer -> {
+            try {
+                rewardService.redeem(reward.getId());
+                succeeded.incrementAndGet();
+            } catch (ConflictException e) {
+                soldOut.incrementAndGet();
+            }
+        });
+
+        List<User> reloaded = userRepository.findAllById(buyers.stream().map(User::getId).toList());
+        long spent = reloaded.stream().mapToLong(user -> 100 - user.getKudosBalance()).sum();
+
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(soldOut.get()).isEqualTo(BUYERS - STOCK);
+        assertThat(rewardRepository.findById(reward.getId()).orElseThrow().getStock()).isZero();
+        assertThat(rewardRedemptionRepository.findAll().stream()
+                .filter(redemption -> redemption.getReward().getId().equals(reward.getId()))).hasSize(STOCK);
+        // Turned-away buyers were not charged: the stock failure rolled back their debit
+        assertThat(spent).isEqualTo((long) STOCK * COST);
+    }
+
+    @Test
+    void concurrentRedeemsNeverOverdrawTheBalance() throws Exception {
+        Reward reward = createReward(null);
+        User buyer = createUsers(1, COST * 3).get(0);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(16, Collections.nCopies(40, buyer), user -> {
+            try {
+                rewardService.redeem(reward.getId());
+                succeeded.incrementAndGet();
+            } catch (BadRequestException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(succeeded.get()).isEqualTo(3);
+        assertThat(rejected.get()).isEqualTo(37);
+        assertThat(userRepository.findById(buyer.getId()).orElseThrow().getKudosBalance()).isZero();
+        assertThat(rewardRepository.findById(reward.getId()).orElseThrow().getStock()).isNull();
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void flashSaleThroughput() throws Exception {
+        Reward reward = createReward(BENCHMARK_STOCK);
+        List<User> buyers = createUsers(BENCHMARK_BUYERS, 100);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+
+        long elapsed = runConcurrently(64, buyers, buyer -> {
+            try {
+                rewardService.redeem(reward.getId());
+                succeeded.incrementAndGet();
+            } catch (ConflictException e) {
+                soldOut.incrementAndGet();
+            }
+        });
+
+        log.info("reward flash sale: {} redeems for {} units in {} ms ({} redemptions/sec), {} sold, {} turned away",
+                BENCHMARK_BUYERS, BENCHMARK_STOCK, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                Math.round(BENCHMARK_BUYERS / (elapsed / 1_000_000_000.0)), succeeded.get(), soldOut.get());
+        assertThat(succeeded.get()).isEqualTo(BENCHMARK_STOCK);
+    }
+
+    private long runConcurrently(int threads, List<User> users, Consumer<User> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (User user : users) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+                try {
+                    task.accept(user);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private Reward createReward(Integer stock) {
+        return rewardRepository.save(Reward.builder()
+                .name("Flash sale " + UUID.randomUUID())
+                .description("Limited drop")
+                .kudosCost(COST)
+                .stock(stock)
+                .build());
+    }
+
+    private List<User> createUsers(int count, int balance) {
+        String run = UUID.randomUUID().toString();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .name("Buyer " + i)
+                    .email("buyer-" + i + "-" + run + "@employeehub.com")
+                    .password("{noop}password")
+                    .role(Role.USER)
+                    .kudosBalance(balance)
+                    .kudosReceived(0)
+                    .streakCount(0)
+                    .enabled(true)
+                    .build());
+        }
+        return userRepository.saveAll(users);
+    }
+}
@@ -0,0 +1,236 @@
+package me.gaga.employeehubapi.service;
+
+import com.sun.net.httpserver.HttpServer;
+import me.gaga.employeehubapi.dto.kudos.SendKudosRequest;
+import me.gaga.employeehubapi.entity.KudosOutbox;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.KudosOutboxRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TeamsWebhookLatencyTest {
+
+    private static final List<String> received = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger failuresRemaining = new AtomicInteger();
+    private static volatile CountDownLatch delivering;
+    private static volatile CountDownLatch releaseDelivery;
+    private static HttpServer webhook;
+
+    @Autowired
+    private KudosService kudosService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private KudosOutboxRepository kudosOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void webhookProperties(DynamicPropertyRegistry registry) throws IOException {
+        webhook = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        webhook.createContext("/webhook", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (failuresRemaining.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                if (releaseDelivery != null) {
+                    delivering.countDown();
+                    await(releaseDelivery);
+                }
+                received.add(body);
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        webhook.start();
+
+        registry.add("teams.webhook.url", () -> "http://localhost:" + webhook.getAddress().getPort() + "/webhook");
+        registry.add("kudos.outbox.poll-interval-ms", () -> "200");
+        registry.add("teams.webhook.initial-backoff-ms", () -> "50");
+    }
+
+    @AfterAll
+    static void stopWebhook() {
+        webhook.stop(0);
+    }
+
+    @BeforeEach
+    void reset() {
+        received.clear();
+        failuresRemaining.set(0);
+        delivering = null;
+        releaseDelivery = null;
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void sendsCompleteWhileTheWebhookIsStalled() throws Exception {
+        User sender = createUser();
+        User receiver = createUser();
+        authenticate(sender);
+        delivering = new CountDownLatch(1);
+        releaseDelivery = new CountDownLatch(1);
+
+        try {
+            send(receiver, "stalled 0");
+            assertThat(delivering.await(15, TimeUnit.SECONDS)).isTrue();
+            // Teams holds the first card and has answered nothing, yet every later send returns
+            for (int i = 1; i < 5; i++) {
+                send(receiver, "stalled " + i);
+            }
+            assertThat(received).isEmpty();
+        } finally {
+            releaseDelivery.countDown();
+        }
+
+        // The four sent during the stall wait in the outbox and go out as one card
+        awaitNotifications(5);
+        assertThat(received).hasSize(2);
+    }
+
+    @Test
+    void retriesServerErrors() throws Exception {
+        User sender = createUser();
+        User receiver = createUser();
+        authenticate(sender);
+        failuresRemaining.set(2);
+
+        send(receiver, "retry");
+
+        awaitNotifications(1);
+        assertThat(failuresRemaining.get()).isZero();
+    }
+
+    @Test
+    void failedDeliveriesAreRetriedUntilDelivered() throws Exception {
+        User sender = createUser();
+        User receiver = createUser();
+        authenticate(sender);
+        failuresRemaining.set(6);
+
+        send(receiver, "durable");
+        // More failures than one delivery's attempts, so the row outlives at least one poll
+        assertThat(kudosOutboxRepository.count()).isPositive();
+
+        awaitNotifications(1);
+        assertThat(failuresRemaining.get()).isZero();
+        // The stub records the card before it answers, so the poller may still be deleting the row
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (kudosOutboxRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(kudosOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void slowDeliveryHoldsNoRowLocks() throws Exception {
+        User sender = createUser();
+        User receiver = createUser();
+        authenticate(sender);
+        delivering = new CountDownLatch(1);
+        releaseDelivery = new CountDownLatch(1);
+
+        send(receiver, "leased");
+
+        try {
+            assertThat(delivering.await(15, TimeUnit.SECONDS)).isTrue();
+            // Teams has the card and hasn't answered: the row is leased, but the claim has committed
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM kudos_outbox WHERE message = 'leased' "
+                    + "AND claimed_until IS NOT NULL", Integer.class)).isEqualTo(1);
+            Integer touched = transactionTemplate.execute(status -> jdbcTemplate.update(
+                    "UPDATE kudos_outbox SET message = message WHERE message = 'leased'"));
+            assertThat(touched).isEqualTo(1);
+            // A second poller skips it rather than sending it again
+            List<KudosOutbox> claimable = transactionTemplate.execute(status -> kudosOutboxRepository.claimBatch(
+                    LocalDateTime.now(), PageRequest.of(0, 50)));
+            assertThat(claimable).extracting(KudosOutbox::getMessage).doesNotContain("leased");
+        } finally {
+            releaseDelivery.countDown();
+        }
+
+        awaitNotifications(1);
+    }
+
+    private void send(User receiver, String message) {
+        kudosService.sendKudos(SendKudosRequest.builder()
+                .receiverId(receiver.getId())
+                .amount(1)
+                .message(message)
+                .build());
+    }
+
+    private void awaitNotifications(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (countNotifications() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(countNotifications()).isEqualTo(expected);
+    }
+
+    private int countNotifications() {
+        return received.stream().mapToInt(body -> body.split("kudos\\*\\* to").length - 1).sum();
+    }
+
+    private void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .name("Webhook User")
+                .email("webhook-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .kudosBalance(100)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
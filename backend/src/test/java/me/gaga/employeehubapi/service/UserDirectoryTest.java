@@ -0,0 +1,265 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.dto.user.UserSummaryDTO;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.JwtTokenUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserDirectoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectoryTest.class);
+
+    private static final int USERS = 5_000;
+    private static final int LOOKUPS = 20_000;
+    private static final String[] FIRST = {"Ava", "Ben", "Chloe", "Daniel", "Ella", "Felix", "Grace", "Hugo", "Isla",
+            "Jack", "Kira", "Leo", "Maya", "Noah", "Olivia", "Pablo", "Quinn", "Rosa", "Sam", "Tara"};
+    private static final String[] LAST = {"Anders", "Brooks", "Carter", "Diaz", "Evans", "Fischer", "Garcia", "Hughes",
+            "Ivanova", "Jensen", "Kowalski", "Lopez", "Moreau", "Nakamura", "Okafor", "Patel", "Quispe", "Rossi",
+            "Schmidt", "Tanaka", "Ueda", "Varga", "Weber", "Xu", "Young", "Zimmermann"};
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void typeaheadAndPagesServeTheWholeDirectory() throws Exception {
+        String run = seed(USERS);
+        userDirectory.reload();
+        String token = jwtTokenUtil.generateToken(userRepository.findByEmail("dir-" + run + "-0@employeehub.com").orElseThrow());
+
+        byte[] everything = perform("/users/", token).getContentAsByteArray();
+        MockHttpServletResponse firstPage = perform("/users/directory", token);
+
+        assertThat(userDirectory.size()).isGreaterThanOrEqualTo(USERS);
+        assertThat(read(firstPage)).hasSize(50);
+        assertThat(firstPage.getContentAsByteArray().length * 50).isLessThan(everything.length);
+
+        // Matches on the start of the name, of a later name part, or of the email
+        assertThat(userDirectory.search("Grace Hug", 10)).isNotEmpty()
+                .allSatisfy(user -> assertThat(user.getName()).startsWith("Grace Hughes"));
+        assertThat(userDirectory.search("nakam", 10)).hasSize(10)
+                .allSatisfy(user -> assertThat(user.getName()).contains("Nakamura"));
+        assertThat(userDirectory.search("dir-" + run + "-4242@", 10)).extracting(UserSummaryDTO::getEmail)
+                .containsExactly("dir-" + run + "-4242@employeehub.com");
+        assertThat(userDirectory.search("zz-nobody", 10)).isEmpty();
+
+        // Keyset pages walk the directory in name order without gaps or repeats
+        List<UserSummaryDTO> walked = new ArrayList<>();
+        Long after = null;
+        for (int page = 0; page < 5; page++) {
+            List<UserSummaryDTO> users = read(perform("/users/directory?limit=100" + (after != null ? "&after=" + after : ""), token));
+            assertThat(users).hasSize(100);
+            walked.addAll(users);
+            after = users.get(users.size() - 1).getId();
+        }
+        Set<Long> ids = new HashSet<>();
+        walked.forEach(user -> ids.add(user.getId()));
+        assertThat(ids).hasSize(walked.size());
+        for (int i = 1; i < walked.size(); i++) {
+            String previous = walked.get(i - 1).getName().toLowerCase(Locale.ROOT);
+            String current = walked.get(i).getName().toLowerCase(Locale.ROOT);
+            assertThat(previous.compareTo(current)).isLessThanOrEqualTo(0);
+        }
+        assertThat(perform("/users/directory?after=-1", token).getStatus()).isEqualTo(400);
+    }
+
+    // Timing only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void typeaheadAtHundredThousandUsers() throws Exception {
+        seed(100_000);
+        userDirectory.reload();
+        long start = System.nanoTime();
+        userDirectory.reload();
+        long reloadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Random random = new Random(7);
+        String[] queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String word = random.nextBoolean() ? FIRST[random.nextInt(FIRST.length)] : LAST[random.nextInt(LAST.length)];
+            queries[i] = word.substring(0, 1 + random.nextInt(Math.min(4, word.length())));
+        }
+        for (String query : queries) {
+            userDirectory.search(query, 10);
+        }
+        long[] lookupNanos = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            long begin = System.nanoTime();
+            userDirectory.search(queries[i], 10);
+            lookupNanos[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(lookupNanos);
+        long medianMicros = lookupNanos[LOOKUPS / 2] / 1_000;
+
+        log.info("user directory of {} users: loaded in {} ms; lookup median {} us, p99 {} us",
+                userDirectory.size(), reloadMs, medianMicros, lookupNanos[LOOKUPS * 99 / 100] / 1_000);
+        assertThat(medianMicros).isLessThan(1_000);
+    }
+
+    @Test
+    void registrationAndRoleChangesAreSearchableAtOnce() throws Exception {
+        String email = "quokka-" + UUID.randomUUID() + "@employeehub.com";
+        MockHttpServletResponse registered = mockMvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Quentin Quokka\", \"email\": \"" + email + "\", \"password\": \"password123\"}"))
+                .andReturn().getResponse();
+        assertThat(registered.getStatus()).isEqualTo(200);
+
+        List<UserSummaryDTO> found = userDirectory.search("quokka", 10);
+        assertThat(found).extracting(UserSummaryDTO::getEmail).contains(email);
+        UserSummaryDTO quentin = found.stream().filter(user -> user.getEmail().equals(email)).findFirst().orElseThrow();
+        assertThat(quentin.getRole()).isEqualTo(Role.USER);
+
+        User admin = userRepository.save(User.builder()
+                .name("Directory Admin")
+                .email("directory-admin-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.ADMIN)
+                .kudosBalance(0)
+                .kudosReceived(0)
+                .streakCount(0)
+                .enabled(true)
+                .build());
+        assertThat(mockMvc.perform(patch("/users/{userId}/role", quentin.getId())
+                        .header("Authorization", "Bearer " + jwtTokenUtil.generateToken(admin))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\": \"ADMIN\"}"))
+                .andReturn().getResponse().getStatus()).isEqualTo(200);
+
+        assertThat(userDirectory.search(email, 1)).extracting(UserSummaryDTO::getRole).containsExactly(Role.ADMIN);
+    }
+
+    @Test
+    void fullUserListKeepsItsBalances() throws Exception {
+        User user = userRepository.save(User.builder()
+                .name("Listed User")
+                .email("listed-" + UUID.randomUUID() + "@employeehub.com")
+                .password("{noop}password")
+                .role(Role.USER)
+                .kudosBalance(40)
+                .kudosReceived(15)
+                .streakCount(2)
+                .enabled(true)
+                .build());
+        long users = userRepository.count();
+
+        MockHttpServletResponse response = perform("/users/", jwtTokenUtil.generateToken(user));
+        assertThat(response.getStatus()).isEqualTo(200);
+        List<UserDTO> listed = objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<>() { });
+
+        assertThat(listed).hasSize((int) users);
+        assertThat(listed).filteredOn(dto -> dto.getId().equals(user.getId()))
+                .extracting(UserDTO::getKudosBalance, UserDTO::getKudosReceived, UserDTO::getStreakCount)
+                .containsExactly(tuple(40, 15, 2));
+    }
+
+    @Test
+    void updatesMadeDuringAReloadAreKept() {
+        UserRepository repository = mock(UserRepository.class);
+        UserDirectory directory = new UserDirectory(repository);
+        when(repository.streamDirectoryRows()).thenAnswer(invocation -> {
+            // Ada is promoted after the stream read her, Grace registers after the stream has passed her
+            directory.update(user(1L, "Ada Lovelace", Role.ADMIN));
+            directory.update(user(2L, "Grace Hopper", Role.USER));
+            return Stream.of(row(1L, "Ada Lovelace", Role.USER));
+        });
+
+        directory.reload();
+
+        assertThat(directory.search("ada", 10)).extracting(UserSummaryDTO::getRole).containsExactly(Role.ADMIN);
+        assertThat(directory.search("grace", 10)).extracting(UserSummaryDTO::getId).containsExactly(2L);
+
+        // Once the reload is over, updates are no longer recorded for it
+        when(repository.streamDirectoryRows()).thenAnswer(invocation -> Stream.of(row(3L, "Alan Turing", Role.USER)));
+        directory.reload();
+        assertThat(directory.size()).isEqualTo(1);
+        assertThat(directory.search("grace", 10)).isEmpty();
+    }
+
+    private User user(Long id, String name, Role role) {
+        return User.builder().id(id).name(name).email(name.toLowerCase(Locale.ROOT).replace(' ', '.') + "@employeehub.com")
+                .role(role).build();
+    }
+
+    private UserRepository.DirectoryRow row(Long id, String name, Role role) {
+        UserRepository.DirectoryRow row = mock(UserRepository.DirectoryRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getName()).thenReturn(name);
+        when(row.getEmail()).thenReturn(name.toLowerCase(Locale.ROOT).replace(' ', '.') + "@employeehub.com");
+        when(row.getRole()).thenReturn(role);
+        return row;
+    }
+
+    // Inserts users named from FIRST and LAST; returns the run id in their emails
+    private String seed(int count) {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = FIRST[i % FIRST.length] + " " + LAST[(i / FIRST.length) % LAST.length] + " " + (i / 520);
+            rows.add(new Object[]{name, "dir-" + run + "-" + i + "@employeehub.com", "{noop}password", "USER",
+                    "https://avatars.employeehub.com/" + i + ".png"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, password, role, avatar_url, kudos_balance, "
+                + "kudos_received, streak_count, enabled) VALUES (?, ?, ?, ?, ?, 100, 0, 0, TRUE)", rows);
+        return run;
+    }
+
+    private MockHttpServletResponse perform(String url, String token) throws Exception {
+        return mockMvc.perform(get(url).header("Authorization", "Bearer " + token)).andReturn().getResponse();
+    }
+
+    private List<UserSummaryDTO> read(MockHttpServletResponse response) throws Exception {
+        assertThat(response.getStatus()).isEqualTo(200);
+        return objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<>() { });
+    }
+}
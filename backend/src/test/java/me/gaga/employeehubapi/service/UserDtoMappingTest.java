@@ -0,0 +1,214 @@
+package me.gaga.employeehubapi.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.gaga.employeehubapi.dto.kudos.CompactFeedDTO;
+import me.gaga.employeehubapi.dto.kudos.KudosDTO;
+import me.gaga.employeehubapi.dto.user.UserDTO;
+import me.gaga.employeehubapi.entity.Role;
+import me.gaga.employeehubapi.entity.User;
+import me.gaga.employeehubapi.repository.KudosRepository;
+import me.gaga.employeehubapi.repository.UserRepository;
+import me.gaga.employeehubapi.security.JwtTokenUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserDtoMappingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDtoMappingTest.class);
+
+    private static final int PAGE = 100;
+    private static final int TEAM = 5;
+    // Dated before any other test's kudos so the cursor only reaches the rows inserted here
+    private static final String CURSOR = "2018-12-31T00:00:00,9223372036854775807";
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private KudosService kudosService;
+
+    @Autowired
+    private KudosRepository kudosRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void feedPageMapsEachUserOnce() throws Exception {
+        List<KudosRepository.FeedRow> rows = insertFeedPage();
+        List<KudosDTO> mapped = kudosService.toDtos(rows);
+
+        // One shared instance per user, not one per row
+        Set<UserDTO> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        mapped.forEach(kudos -> {
+            instances.add(kudos.getSender());
+            instances.add(kudos.getReceiver());
+        });
+        assertThat(instances).hasSize(TEAM);
+        assertThat(mapped).isEqualTo(builderPerRow(rows));
+
+        String token = jwtTokenUtil.generateToken(userRepository.findById(rows.get(0).getSenderId()).orElseThrow());
+        byte[] full = perform("/kudos/feed?limit=" + PAGE + "&before=" + CURSOR, token);
+        byte[] compact = perform("/kudos/feed/compact?limit=" + PAGE + "&before=" + CURSOR, token);
+        assertThat(compact.length * 2).isLessThan(full.length);
+
+        CompactFeedDTO page = objectMapper.readValue(compact, CompactFeedDTO.class);
+        List<KudosDTO> expanded = objectMapper.readValue(full, new TypeReference<>() { });
+        assertThat(page.getUsers()).hasSize(TEAM);
+        for (int i = 0; i < PAGE; i++) {
+            assertThat(page.getKudos().get(i).getId()).isEqualTo(expanded.get(i).getId());
+            assertThat(page.getUsers().get(page.getKudos().get(i).getSenderId())).isEqualTo(expanded.get(i).getSender());
+            assertThat(page.getUsers().get(page.getKudos().get(i).getReceiverId())).isEqualTo(expanded.get(i).getReceiver());
+        }
+    }
+
+    // Allocation only; run it with mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void sharedMappingAllocatesLess() {
+        List<KudosRepository.FeedRow> rows = insertFeedPage();
+
+        long perRowBuilders = allocatedPerCall(() -> builderPerRow(rows));
+        long shared = allocatedPerCall(() -> kudosService.toDtos(rows));
+        List<KudosDTO> mapped = kudosService.toDtos(rows);
+        long fullJsonAllocated = allocatedPerCall(() -> write(mapped));
+        long compactJsonAllocated = allocatedPerCall(() -> write(kudosService.compact(mapped)));
+
+        log.info("feed page of {} kudos between {} users: mapping {} -> {} bytes allocated; serializing {} -> {} bytes allocated",
+                PAGE, TEAM, perRowBuilders, shared, fullJsonAllocated, compactJsonAllocated);
+        assertThat(shared).isLessThan(perRowBuilders);
+    }
+
+    private List<KudosRepository.FeedRow> insertFeedPage() {
+        List<User> team = createUsers(TEAM);
+        for (int i = 0; i < PAGE; i++) {
+            jdbcTemplate.update("INSERT INTO kudos (sender_id, receiver_id, amount, message, created_at, is_streak_bonus) "
+                            + "VALUES (?, ?, 5, 'Thanks for the review', ?, FALSE)",
+                    team.get(i % TEAM).getId(), team.get((i + 1) % TEAM).getId(),
+                    LocalDateTime.of(2018, 6, 1, 9, 0).plusMinutes(i));
+        }
+        List<KudosRepository.FeedRow> rows = kudosRepository.findFeedBefore(
+                LocalDateTime.parse("2018-12-31T00:00:00"), Long.MAX_VALUE, PageRequest.of(0, PAGE)).getContent();
+        assertThat(rows).hasSize(PAGE);
+        return rows;
+    }
+
+    // The mapping every service used before: two builders and two UserDTOs per kudos
+    private static List<KudosDTO> builderPerRow(List<KudosRepository.FeedRow> rows) {
+        List<KudosDTO> kudos = new ArrayList<>();
+        for (KudosRepository.FeedRow row : rows) {
+            kudos.add(KudosDTO.builder()
+                    .id(row.getId())
+                    .sender(UserDTO.builder()
+                            .id(row.getSenderId())
+                            .name(row.getSenderName())
+                            .email(row.getSenderEmail())
+                            .role(row.getSenderRole())
+                            .avatarUrl(row.getSenderAvatarUrl())
+                            .kudosBalance(row.getSenderKudosBalance())
+                            .kudosReceived(row.getSenderKudosReceived())
+                            .streakCount(row.getSenderStreakCount())
+                            .build())
+                    .receiver(UserDTO.builder()
+                            .id(row.getReceiverId())
+                            .name(row.getReceiverName())
+                            .email(row.getReceiverEmail())
+                            .role(row.getReceiverRole())
+                            .avatarUrl(row.getReceiverAvatarUrl())
+                            .kudosBalance(row.getReceiverKudosBalance())
+                            .kudosReceived(row.getReceiverKudosReceived())
+                            .streakCount(row.getReceiverStreakCount())
+                            .build())
+                    .amount(row.getAmount())
+                    .message(row.getMessage())
+                    .createdAt(row.getCreatedAt())
+                    .isStreakBonus(row.getIsStreakBonus())
+                    .build());
+        }
+        return kudos;
+    }
+
+    // Median bytes allocated by this thread for one call, after warm-up
+    private long allocatedPerCall(Supplier<?> call) {
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 2_000; i++) {
+            call.get();
+        }
+        long[] samples = new long[51];
+        for (int i = 0; i < samples.length; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            call.get();
+            samples[i] = threads.getThreadAllocatedBytes(threadId) - before;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private byte[] perform(String url, String token) throws Exception {
+        return mockMvc.perform(get(url).header("Authorization", "Bearer " + token)).andReturn().getResponse()
+                .getContentAsByteArray();
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .name("Teammate " + i)
+                    .email("mapping-" + UUID.randomUUID() + "@employeehub.com")
+                    .password("{noop}password")
+                    .role(Role.USER)
+                    .avatarUrl("https://avatars.employeehub.com/" + i + ".png")
+                    .kudosBalance(100)
+                    .kudosReceived(0)
+                    .streakCount(0)
+                    .enabled(true)
+                    .build());
+        }
+        return userRepository.saveAll(users);
+    }
+}
@@ -20,7 +20,7 @@ export class DashboardComponent implements OnInit {
   apiService = inject(ApiService);
   authService = inject(AuthService);
   leaderboard = this.apiService.kudosLeaderboard;
-  projects = this.apiService.projects;
+  projects = this.apiService.myProjects;
   sendKudos = output();
 
   topThreeLeaderboard = computed(() => this.leaderboard().slice(0, 3));
@@ -47,7 +47,7 @@ export class DashboardComponent implements OnInit {
   private refreshData() {
     forkJoin({
       users: this.apiService.getAllUsers(),
-      projects: this.apiService.getAllProjects(),
+      projects: this.apiService.getMyProjects(),
       leaderboard: this.apiService.getKudosLeaderboard()
     }).subscribe({
       error: (error) => console.error('Failed to load dashboard data:', error)
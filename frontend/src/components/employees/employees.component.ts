@@ -2,7 +2,7 @@ import { Component, ChangeDetectionStrategy, inject, signal, computed, output, O
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { DataService } from '../../services/data.service';
-import { ApiService } from '../../services/api.service';
+import { ApiService, UserSummaryDTO } from '../../services/api.service';
 import { AuthService } from '../../services/auth.service';
 import { BadgeService } from '../../services/badge.service';
 import { RoleService } from '../../services/role.service';
@@ -10,6 +10,8 @@ import { NotificationService } from '../../services/notification.service';
 import { Employee, EmployeeRole, Badge, ProjectAssignment, UserDTO } from '../../models';
 import { KudosModalComponent } from '../kudos-modal/kudos-modal.component';
 
+const DIRECTORY_PAGE_SIZE = 50;
+
 @Component({
   selector: 'app-employees',
   standalone: true,
@@ -27,6 +29,9 @@ export class EmployeesComponent implements OnInit {
   sendKudos = output<Employee>();
 
   searchTerm = signal('');
+  directory = signal<UserSummaryDTO[]>([]);
+  hasMore = signal(false);
+  private searchTimer: ReturnType<typeof setTimeout> | undefined;
   selectedRole = signal<EmployeeRole | 'All'>('All');
 
   editingAssignmentsFor = signal<Employee | null>(null);
@@ -39,17 +44,10 @@ export class EmployeesComponent implements OnInit {
   roles = computed(() => ['All', ...this.roleService.roles()]);
   projects = this.apiService.projects;
 
+  // The search itself runs on the server; the role filter applies to the users loaded so far
   filteredEmployees = computed(() => {
-    const term = this.searchTerm().toLowerCase();
     const role = this.selectedRole();
-    const allEmployees = this.apiService.employees();
-
-    return allEmployees.filter(employee => {
-      const nameMatch = employee.name.toLowerCase().includes(term);
-      const idMatch = employee.id.toString().includes(term);
-      const roleMatch = role === 'All' || employee.role === role;
-      return (nameMatch || idMatch) && roleMatch;
-    });
+    return this.directory().filter(employee => role === 'All' || employee.role === role);
   });
   
   availableProjects = computed(() => {
@@ -61,10 +59,35 @@ export class EmployeesComponent implements OnInit {
 
   ngOnInit() {
     // Load data from API
-    this.apiService.getAllUsers().subscribe();
+    this.loadDirectory();
     this.apiService.getAllProjects().subscribe();
   }
 
+  onSearchChange(term: string) {
+    this.searchTerm.set(term);
+    clearTimeout(this.searchTimer);
+    this.searchTimer = setTimeout(() => this.loadDirectory(), 250);
+  }
+
+  private loadDirectory() {
+    const term = this.searchTerm().trim();
+    this.apiService.getUserDirectory(term || undefined, undefined, DIRECTORY_PAGE_SIZE).subscribe(page => {
+      // A slower response for an earlier search must not replace the current one
+      if (term !== this.searchTerm().trim()) return;
+      this.directory.set(page);
+      this.hasMore.set(!term && page.length === DIRECTORY_PAGE_SIZE);
+    });
+  }
+
+  loadMore() {
+    const last = this.directory().at(-1);
+    if (!last) return;
+    this.apiService.getUserDirectory(undefined, last.id, DIRECTORY_PAGE_SIZE).subscribe(page => {
+      this.directory.update(users => [...users, ...page]);
+      this.hasMore.set(page.length === DIRECTORY_PAGE_SIZE);
+    });
+  }
+
   getEmployeeBadges(employee: UserDTO): Badge[] {
       // Convert UserDTO to Employee for badge service compatibility
       const employeeForBadges: Employee = {
@@ -89,15 +112,15 @@ export class EmployeesComponent implements OnInit {
       })));
   }
 
-  onSendKudos(employee: UserDTO) {
-    // Convert UserDTO to Employee for the modal
+  onSendKudos(employee: UserSummaryDTO) {
+    // Convert the directory entry to Employee for the modal; the directory carries no kudos counts
     const employeeForKudos: Employee = {
       id: employee.id,
       name: employee.name,
       role: employee.role as EmployeeRole,
       avatarUrl: employee.avatarUrl,
-      kudosReceived: employee.kudosReceived,
-      kudosBalance: employee.kudosBalance,
+      kudosReceived: 0,
+      kudosBalance: 0,
       kudosSent: 0, // Default value
       projectAssignments: [] // Default empty array
     };
@@ -118,8 +141,6 @@ export class EmployeesComponent implements OnInit {
     }).subscribe({
       next: () => {
         this.onCloseModal();
-        // Refresh employee list
-        this.apiService.getAllUsers().subscribe();
       },
       error: (error) => {
         console.error('Failed to send kudos:', error);
@@ -128,15 +149,15 @@ export class EmployeesComponent implements OnInit {
     });
   }
 
-  openAssignmentModal(employee: UserDTO) {
-    // Convert UserDTO to Employee for the modal
+  openAssignmentModal(employee: UserSummaryDTO) {
+    // Convert the directory entry to Employee for the modal
     const employeeForModal: Employee = {
       id: employee.id,
       name: employee.name,
       role: employee.role as EmployeeRole,
       avatarUrl: employee.avatarUrl,
-      kudosReceived: employee.kudosReceived,
-      kudosBalance: employee.kudosBalance,
+      kudosReceived: 0,
+      kudosBalance: 0,
       kudosSent: 0, // Default value
       projectAssignments: [] // Default empty array
     };
@@ -1,7 +1,7 @@
 import {Injectable, signal, computed, inject} from '@angular/core';
-import { HttpClient, HttpHeaders } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable, BehaviorSubject, throwError } from 'rxjs';
-import { map, catchError, tap } from 'rxjs/operators';
+import { map, catchError, tap, switchMap, finalize, shareReplay } from 'rxjs/operators';
 import { Employee, Project, Reward, KudoTransaction, UserDTO } from '../models';
 import {NotificationService} from "@/src/services/notification.service";
 
@@ -12,6 +12,7 @@ export interface AuthResponse {
   email: string;
   role: string;
   token: string;
+  refreshToken: string;
   avatarUrl: string;
   kudosBalance: number;
   kudosReceived: number;
@@ -36,6 +37,26 @@ export interface ProjectDTO {
   description: string;
 }
 
+export interface ProjectSummaryDTO {
+  id: number;
+  name: string;
+  description: string;
+  createdAt: string;
+  updatedAt: string | null;
+  ownerId: number | null;
+  ownerName: string | null;
+  memberCount: number;
+  memberAvatars: string[];
+}
+
+export interface UserSummaryDTO {
+  id: number;
+  name: string;
+  email: string;
+  role: string;
+  avatarUrl: string;
+}
+
 export interface CreateProjectRequest {
   name: string;
   description: string;
@@ -87,10 +108,12 @@ export class ApiService {
   // Signals for reactive state management
   public employees = signal<UserDTO[]>([]);
   public projects = signal<ProjectDTO[]>([]);
+  public myProjects = signal<ProjectSummaryDTO[]>([]);
   public rewards = signal<RewardDTO[]>([]);
   public kudosFeed = signal<KudosDTO[]>([]);
   public currentUser = signal<AuthResponse | null>(null);
   public notificationService = inject(NotificationService);
+  private refreshing: Observable<AuthResponse> | null = null;
 
   constructor(private http: HttpClient) {
     this.loadCurrentUser();
@@ -108,12 +131,49 @@ export class ApiService {
     return localStorage.getItem('auth_token');
   }
 
-  private setToken(token: string): void {
-    localStorage.setItem('auth_token', token);
+  private getRefreshToken(): string | null {
+    return localStorage.getItem('refresh_token');
+  }
+
+  private setToken(response: AuthResponse): void {
+    localStorage.setItem('auth_token', response.token);
+    localStorage.setItem('refresh_token', response.refreshToken);
   }
 
   private removeToken(): void {
     localStorage.removeItem('auth_token');
+    localStorage.removeItem('refresh_token');
+  }
+
+  // Access tokens are short-lived: on a 401 the request is retried once with a refreshed token
+  private authorized<T>(request: () => Observable<T>): Observable<T> {
+    return request().pipe(
+      catchError(error => {
+        if (error.status !== 401 || !this.getRefreshToken()) {
+          return throwError(() => error);
+        }
+        return this.refreshSession().pipe(switchMap(() => request()));
+      })
+    );
+  }
+
+  // Refresh tokens work once, so requests failing together share a single refresh
+  private refreshSession(): Observable<AuthResponse> {
+    if (!this.refreshing) {
+      this.refreshing = this.http.post<AuthResponse>(`${this.baseUrl}/auth/refresh`, { refreshToken: this.getRefreshToken() })
+        .pipe(
+          tap(response => this.setToken(response)),
+          catchError(error => {
+            // The server already rejected the refresh token, so there is nothing left to revoke
+            this.removeToken();
+            this.logout();
+            return throwError(() => error);
+          }),
+          finalize(() => this.refreshing = null),
+          shareReplay(1)
+        );
+    }
+    return this.refreshing;
   }
 
   private loadCurrentUser(): void {
@@ -136,7 +196,7 @@ export class ApiService {
     return this.http.post<AuthResponse>(`${this.baseUrl}/auth/login`, credentials)
       .pipe(
         tap(response => {
-          this.setToken(response.token);
+          this.setToken(response);
           this.currentUser.set(response);
           this.currentUserSubject.next(response);
         }),
@@ -148,7 +208,7 @@ export class ApiService {
     return this.http.post<AuthResponse>(`${this.baseUrl}/auth/register`, userData)
       .pipe(
         tap(response => {
-          this.setToken(response.token);
+          this.setToken(response);
           this.currentUser.set(response);
           this.currentUserSubject.next(response);
         }),
@@ -157,11 +217,16 @@ export class ApiService {
   }
 
   getCurrentUser(): Observable<AuthResponse> {
-    return this.http.get<AuthResponse>(`${this.baseUrl}/auth/me`, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.get<AuthResponse>(`${this.baseUrl}/auth/me`, { headers: this.getHeaders() }))
       .pipe(catchError(this.handleError));
   }
 
   logout(): void {
+    const refreshToken = this.getRefreshToken();
+    if (refreshToken) {
+      this.http.post<void>(`${this.baseUrl}/auth/logout`, { refreshToken }, { headers: this.getHeaders() })
+        .subscribe({ error: () => {} });
+    }
     this.removeToken();
     this.currentUser.set(null);
     this.currentUserSubject.next(null);
@@ -173,30 +238,51 @@ export class ApiService {
 
   // User methods
   getAllUsers(): Observable<UserDTO[]> {
-    return this.http.get<UserDTO[]>(`${this.baseUrl}/users/`, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.get<UserDTO[]>(`${this.baseUrl}/users/`, { headers: this.getHeaders() }))
       .pipe(
         tap(users => this.employees.set(users)),
         catchError(this.handleError)
       );
   }
 
+  // One page of the directory in name order; with a query it is a typeahead and has no further pages
+  getUserDirectory(q?: string, after?: number, limit: number = 50): Observable<UserSummaryDTO[]> {
+    let params = new HttpParams().set('limit', limit);
+    if (q) {
+      params = params.set('q', q);
+    }
+    if (after !== undefined) {
+      params = params.set('after', after);
+    }
+    return this.authorized(() => this.http.get<UserSummaryDTO[]>(`${this.baseUrl}/users/directory`, { headers: this.getHeaders(), params }))
+      .pipe(catchError(this.handleError));
+  }
+
   updateUserRole(userId: number, role: string): Observable<UserDTO> {
-    return this.http.patch<UserDTO>(`${this.baseUrl}/users/${userId}/role`, 
-      { role }, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.patch<UserDTO>(`${this.baseUrl}/users/${userId}/role`, 
+      { role }, { headers: this.getHeaders() }))
       .pipe(catchError(this.handleError));
   }
 
   // Project methods
   getAllProjects(): Observable<ProjectDTO[]> {
-    return this.http.get<ProjectDTO[]>(`${this.baseUrl}/projects/`, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.get<ProjectDTO[]>(`${this.baseUrl}/projects/`, { headers: this.getHeaders() }))
       .pipe(
         tap(projects => this.projects.set(projects)),
         catchError(this.handleError)
       );
   }
 
+  getMyProjects(): Observable<ProjectSummaryDTO[]> {
+    return this.authorized(() => this.http.get<ProjectSummaryDTO[]>(`${this.baseUrl}/projects/mine`, { headers: this.getHeaders() }))
+      .pipe(
+        tap(projects => this.myProjects.set(projects)),
+        catchError(this.handleError)
+      );
+  }
+
   createProject(projectData: CreateProjectRequest): Observable<ProjectDTO> {
-    return this.http.post<ProjectDTO>(`${this.baseUrl}/projects/`, projectData, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.post<ProjectDTO>(`${this.baseUrl}/projects/`, projectData, { headers: this.getHeaders() }))
       .pipe(
         tap(project => {
           this.projects.update(projects => [...projects, project]);
@@ -206,7 +292,7 @@ export class ApiService {
   }
 
   updateProject(projectId: number, projectData: UpdateProjectRequest): Observable<ProjectDTO> {
-    return this.http.put<ProjectDTO>(`${this.baseUrl}/projects/${projectId}`, projectData, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.put<ProjectDTO>(`${this.baseUrl}/projects/${projectId}`, projectData, { headers: this.getHeaders() }))
       .pipe(
         tap(updatedProject => {
           this.projects.update(projects => 
@@ -218,7 +304,7 @@ export class ApiService {
   }
 
   deleteProject(projectId: number): Observable<void> {
-    return this.http.delete<void>(`${this.baseUrl}/projects/${projectId}`, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.delete<void>(`${this.baseUrl}/projects/${projectId}`, { headers: this.getHeaders() }))
       .pipe(
         tap(() => {
           this.projects.update(projects => projects.filter(p => p.id !== projectId));
@@ -229,7 +315,7 @@ export class ApiService {
 
   // Kudos methods
   sendKudos(kudosData: SendKudosRequest): Observable<KudosDTO> {
-    return this.http.post<KudosDTO>(`${this.baseUrl}/kudos/send`, kudosData, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.post<KudosDTO>(`${this.baseUrl}/kudos/send`, kudosData, { headers: this.getHeaders() }))
       .pipe(
         tap(kudos => {
           this.kudosFeed.update(feed => [kudos, ...feed]);
@@ -242,7 +328,7 @@ export class ApiService {
   }
 
   getKudosFeed(page: number = 0, size: number = 20): Observable<KudosDTO[]> {
-    return this.http.get<KudosDTO[]>(`${this.baseUrl}/kudos/feed?page=${page}&size=${size}`, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.get<KudosDTO[]>(`${this.baseUrl}/kudos/feed?page=${page}&size=${size}`, { headers: this.getHeaders() }))
       .pipe(
         tap(feed => this.kudosFeed.set(feed)),
         catchError(this.handleError)
@@ -250,13 +336,13 @@ export class ApiService {
   }
 
   getKudosLeaderboard(): Observable<UserDTO[]> {
-    return this.http.get<UserDTO[]>(`${this.baseUrl}/kudos/leaderboard`, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.get<UserDTO[]>(`${this.baseUrl}/kudos/leaderboard`, { headers: this.getHeaders() }))
       .pipe(catchError(this.handleError));
   }
 
   // Reward methods
   getAllRewards(): Observable<RewardDTO[]> {
-    return this.http.get<RewardDTO[]>(`${this.baseUrl}/rewards/`, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.get<RewardDTO[]>(`${this.baseUrl}/rewards/`, { headers: this.getHeaders() }))
       .pipe(
         tap(rewards => this.rewards.set(rewards)),
         catchError(this.handleError)
@@ -264,7 +350,7 @@ export class ApiService {
   }
 
   redeemReward(rewardId: number): Observable<RewardRedemptionDTO> {
-    return this.http.post<RewardRedemptionDTO>(`${this.baseUrl}/rewards/${rewardId}/redeem`, {}, { headers: this.getHeaders() })
+    return this.authorized(() => this.http.post<RewardRedemptionDTO>(`${this.baseUrl}/rewards/${rewardId}/redeem`, {}, { headers: this.getHeaders() }))
       .pipe(
         tap(() => {
           // Refresh current user to get updated kudos balance